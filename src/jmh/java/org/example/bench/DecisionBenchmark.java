@@ -0,0 +1,67 @@
+package org.example.bench;
+
+import org.example.DecisionAlgorithms;
+import org.example.Matrix.TropicalMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.TropicalMatrixGenerator.getRandomMatrices;
+
+/**
+ * End-to-end decision algorithms on a fixed batch of seeded random instances (the same instances as in Main:
+ * entries 0, 1 and infinity with equal probability). Every invocation decides the whole batch.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionBenchmark {
+    private static final long SEED = 0x5EEDL;
+    private static final int INSTANCES = 64;
+    private static final double TIMEOUT_SECONDS = 1;
+
+    @Param({"2", "3", "4"})
+    public int n;
+
+    @Param({"1", "2", "3"})
+    public int numberOfMatrices;
+
+    private TropicalMatrix[][] instances;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        instances = new TropicalMatrix[INSTANCES][];
+        for (int i = 0; i < INSTANCES; i++) instances[i] = getRandomMatrices(numberOfMatrices, n, 1, random);
+    }
+
+    @Benchmark
+    public void semiDecide(Blackhole blackhole) {
+        for (TropicalMatrix[] instance : instances) blackhole.consume(DecisionAlgorithms.semiDecide(instance, TIMEOUT_SECONDS));
+    }
+
+    @Benchmark
+    public void decideOneMatrix(Blackhole blackhole) {
+        for (TropicalMatrix[] instance : instances) blackhole.consume(DecisionAlgorithms.decideOneMatrix(instance[0]));
+    }
+
+    @Benchmark
+    public void decideWithBound(Blackhole blackhole) {
+        for (TropicalMatrix[] instance : instances) blackhole.consume(DecisionAlgorithms.decideWithBound(instance));
+    }
+}
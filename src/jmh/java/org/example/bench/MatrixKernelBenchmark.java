@@ -0,0 +1,118 @@
+package org.example.bench;
+
+import org.example.Matrix.BitMatrix;
+import org.example.Matrix.BooleanMatrix;
+import org.example.Matrix.MatrixSet;
+import org.example.Matrix.TropicalMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matrix kernels over dimension, density of infinite entries and range of finite entries.
+ * All inputs are generated from a fixed seed, so every run measures the same matrices.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixKernelBenchmark {
+    private static final long SEED = 0x5EEDL;
+    private static final int SET_SIZE = 1024;       // number of distinct matrices inserted by the set benchmarks
+    private static final int MAX_DRAWS = 16 * SET_SIZE;     // small parameters have fewer than SET_SIZE distinct matrices
+
+    @Param({"3", "4", "8", "16", "32", "64", "128", "256"})
+    public int n;
+
+    @Param({"0.0", "0.333", "0.9"})
+    public double infDensity;
+
+    @Param({"1", "100"})
+    public int maxValue;
+
+    private TropicalMatrix a, b;
+    private BitMatrix abstraction;
+    private BooleanMatrix unpackedAbstraction;
+    private TropicalMatrix[] distinct;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        double zeroChance = (1 - infDensity) / 3;
+        a = TropicalMatrix.random(n, maxValue, zeroChance, infDensity, random);
+        b = TropicalMatrix.random(n, maxValue, zeroChance, infDensity, random);
+        abstraction = a.booleanAbstraction();
+        unpackedAbstraction = abstraction.toBooleanMatrix();
+
+        Set<TropicalMatrix> matrices = new HashSet<>();
+        for (int draws = 0; draws < MAX_DRAWS && matrices.size() < SET_SIZE; draws++) matrices.add(TropicalMatrix.random(n, maxValue, zeroChance, infDensity, random));
+        distinct = matrices.toArray(new TropicalMatrix[0]);
+    }
+
+    @Benchmark
+    public TropicalMatrix times() {
+        return a.times(b);
+    }
+
+    /** Includes copying a (timesInPlace() overwrites its receiver, and repeated products would overflow) */
+    @Benchmark
+    public TropicalMatrix timesInPlace() {
+        TropicalMatrix product = new TropicalMatrix(a);
+        product.timesInPlace(b);
+        return product;
+    }
+
+    @Benchmark
+    public TropicalMatrix pow8() {
+        return a.pow(8);
+    }
+
+    @Benchmark
+    public BitMatrix transitiveClosure() {
+        return abstraction.transitiveClosure();
+    }
+
+    /** Includes packing into and unpacking from a BitMatrix */
+    @Benchmark
+    public BooleanMatrix booleanTransitiveClosure() {
+        return unpackedAbstraction.transitiveClosure();
+    }
+
+    @Benchmark
+    public BitMatrix bitTimes() {
+        return abstraction.times(abstraction);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Set<TropicalMatrix> hashSetInsert() {
+        Set<TropicalMatrix> set = new HashSet<>();
+        for (TropicalMatrix matrix : distinct) set.add(matrix);
+        for (TropicalMatrix matrix : distinct) set.add(matrix);     // duplicates
+        return set;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MatrixSet matrixSetInsert() {
+        MatrixSet set = new MatrixSet(n);
+        for (TropicalMatrix matrix : distinct) set.add(matrix);
+        for (TropicalMatrix matrix : distinct) set.add(matrix);     // duplicates
+        return set;
+    }
+}
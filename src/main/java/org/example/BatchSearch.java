@@ -0,0 +1,188 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.example.DecisionAlgorithms.semiDecideResult;
+import static org.example.TropicalMatrixGenerator.getRandomMatrices;
+
+/**
+ * Searches randomly generated instances for the maximum bound on all cores.
+ * <p>
+ * Every worker thread draws instance seeds from its own SplittableRandom (split off a single master seed),
+ * and every instance is generated from a fresh SplittableRandom with its seed, so any instance can be regenerated
+ * from its seed alone (see instance()), independently of the number of threads and of the order in which workers ran.
+ * <p>
+ * Workers share nothing but the (concurrent) DecisionCache and a few counters: each worker keeps its own best results
+ * and only publishes them when they improve, by merging them into an immutable Best with a compare-and-set.
+ * */
+public class BatchSearch {
+
+    /**
+     * Best results found so far: maxBounded is the maximum value of all bounded instances (found with maxBoundedSeed),
+     * minUnbounded is the minimum "max value" of all instances that timed out (presumed unbounded, found with minUnboundedSeed).
+     * Seeds are 0 and maxInstance is null as long as no such instance was found.
+     * */
+    public record Best(int maxBounded, long maxBoundedSeed, TropicalMatrix[] maxInstance, int minUnbounded, long minUnboundedSeed) {
+        public static final Best NONE = new Best(0, 0, null, Integer.MAX_VALUE, 0);
+
+        /** Combination of both results (ties are resolved in favor of this) */
+        public Best merge(Best other) {
+            boolean otherMax = other.maxBounded > maxBounded;
+            boolean otherMin = other.minUnbounded < minUnbounded;
+            if (!otherMax && !otherMin) return this;
+            if (otherMax && otherMin) return other;
+            return otherMax
+                    ? new Best(other.maxBounded, other.maxBoundedSeed, other.maxInstance, minUnbounded, minUnboundedSeed)
+                    : new Best(maxBounded, maxBoundedSeed, maxInstance, other.minUnbounded, other.minUnboundedSeed);
+        }
+    }
+
+    private final int dimension;
+    private final int numberOfMatrices;
+    private final int maxValue;
+    private final double timeoutSeconds;
+    private final int threads;
+    private final long seed;
+    private final DecisionCache<SemigroupClosure.Result> cache;     // null -> every instance is decided
+
+    private final AtomicReference<Best> best = new AtomicReference<>(Best.NONE);
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder provenUnbounded = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private volatile boolean stopped;
+
+    /** Uses one worker per available processor */
+    public BatchSearch(int dimension, int numberOfMatrices, int maxValue, double timeoutSeconds, long seed, DecisionCache<SemigroupClosure.Result> cache) {
+        this(dimension, numberOfMatrices, maxValue, timeoutSeconds, Runtime.getRuntime().availableProcessors(), seed, cache);
+    }
+
+    public BatchSearch(int dimension, int numberOfMatrices, int maxValue, double timeoutSeconds, int threads, long seed, DecisionCache<SemigroupClosure.Result> cache) {
+        if (dimension <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
+        if (numberOfMatrices < 1) throw new IllegalArgumentException("numberOfMatrices must be at least 1.");
+        if (maxValue < 1) throw new IllegalArgumentException("maxValue must be at least 1.");
+        if (threads < 1) throw new IllegalArgumentException("threads must be at least 1.");
+        this.dimension = dimension;
+        this.numberOfMatrices = numberOfMatrices;
+        this.maxValue = maxValue;
+        this.timeoutSeconds = timeoutSeconds;
+        this.threads = threads;
+        this.seed = seed;
+        this.cache = cache;
+    }
+
+    /**
+     * Runs all workers for about totalNanoSeconds, calls progress (on the calling thread) about every intervalNanoSeconds,
+     * and returns the best results. Exceptions of workers are rethrown after all workers have stopped.
+     * */
+    public Best run(long totalNanoSeconds, long intervalNanoSeconds, Consumer<BatchSearch> progress) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        SplittableRandom master = new SplittableRandom(seed);
+        Thread[] workers = new Thread[threads];
+        stopped = false;
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = master.split();
+            workers[i] = new Thread(() -> {
+                try {
+                    work(random);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    stopped = true;
+                }
+            }, "batch-search-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            while (!stopped) {
+                long remaining = totalNanoSeconds - (System.nanoTime() - startTime);
+                if (remaining <= 0) break;
+                Thread.sleep(Math.max(1, Math.min(remaining, intervalNanoSeconds) / 1_000_000));
+                if (progress != null && !stopped && System.nanoTime() - startTime < totalNanoSeconds) progress.accept(this);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped = true;
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        if (failure.get() != null) throw new IllegalStateException("Worker failed.", failure.get());
+        return best.get();
+    }
+
+    private void work(SplittableRandom random) {
+        Best local = Best.NONE;
+        while (!stopped) {
+            long instanceSeed = random.nextLong();
+            TropicalMatrix[] matrices = instance(instanceSeed);
+            SemigroupClosure.Result result = cache == null
+                    ? semiDecideResult(matrices, timeoutSeconds)
+                    : cache.decide(matrices, instance -> semiDecideResult(instance, timeoutSeconds));
+            checked.increment();
+
+            Best improved = local;
+            if (result.bounded() && result.maxValue() > local.maxBounded) {
+                improved = new Best(result.maxValue(), instanceSeed, matrices, local.minUnbounded, local.minUnboundedSeed);
+            } else if (result.status() == SemigroupClosure.Status.UNBOUNDED) {
+                provenUnbounded.increment();
+            } else if (!result.bounded()) {
+                timedOut.increment();
+                if (result.maxValue() < local.minUnbounded) {
+                    improved = new Best(local.maxBounded, local.maxBoundedSeed, local.maxInstance, result.maxValue(), instanceSeed);
+                }
+            }
+            if (improved != local) {
+                local = best.accumulateAndGet(improved, Best::merge);
+            }
+        }
+    }
+
+    /** The instance with the given seed (the same seed always gives the same instance) */
+    public TropicalMatrix[] instance(long instanceSeed) {
+        return getRandomMatrices(numberOfMatrices, dimension, maxValue, new SplittableRandom(instanceSeed));
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors (may be called while running)                            */
+    /* ------------------------------------------------------------------ */
+
+    public Best best() {
+        return best.get();
+    }
+
+    /** Number of instances decided so far (including instances answered by the cache) */
+    public long checked() {
+        return checked.sum();
+    }
+
+    /** Number of instances with a word whose powers grow without bound */
+    public long provenUnbounded() {
+        return provenUnbounded.sum();
+    }
+
+    /** Number of instances that timed out (presumed unbounded) */
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public long seed() {
+        return seed;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example;
+
+import org.example.Matrix.CappedTropicalMatrix;
+import org.example.Matrix.MatrixSet;
+import org.example.Matrix.TropicalMatrix;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary checkpoint of a SemigroupClosure (see SemigroupClosure.enableCheckpoints() and SemigroupClosure.resume()).
+ * <p>
+ * Layout (big-endian ints): magic, version, n, number of generators k, for each generator its cap (-1 if it is not capped)
+ * and its n * n entries, generation, cursor, frontierEnd, maxValue, number of products, and the entries of all products
+ * in order of their ids. The frontier is not stored separately, since it is the id range [cursor, number of products).
+ * <p>
+ * A checkpoint is written to a temporary file next to the target, which then replaces the target atomically,
+ * so the target is always either the previous or the new checkpoint, even if the process is killed while writing.
+ * */
+final class ClosureCheckpoint {
+    private static final int MAGIC = 0x54434350;   // "TCCP"
+    private static final int VERSION = 1;
+
+    /** State of a closure: products and the counters of SemigroupClosure (generators are only used for validation) */
+    record State(TropicalMatrix[] generators, int generation, int cursor, int frontierEnd, int maxValue, MatrixSet.Snapshot products) {
+    }
+
+    private ClosureCheckpoint() {
+    }
+
+    static void write(Path file, State state) throws IOException {
+        int n = state.products.dimension();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(4 * (9 + state.generators.length * (1 + n * n)));
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(state.generators.length);
+            for (TropicalMatrix generator : state.generators) {
+                header.putInt(cap(generator));
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) header.putInt(generator.get(i, j));
+                }
+            }
+            header.putInt(state.generation).putInt(state.cursor).putInt(state.frontierEnd).putInt(state.maxValue).putInt(state.products.size());
+            header.flip();
+            while (header.hasRemaining()) channel.write(header);
+            state.products.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Reads a checkpoint of a closure of the given generators (same entries and caps, in the same order) */
+    static State read(Path file, TropicalMatrix[] generators) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int[] fixed = readInts(channel, 4);
+            if (fixed[0] != MAGIC) throw new IOException("Not a closure checkpoint: " + file);
+            if (fixed[1] != VERSION) throw new IOException("Unsupported checkpoint version " + fixed[1] + ".");
+            int n = fixed[2], k = fixed[3];
+            if (k != generators.length || n != generators[0].size()) throw new IllegalArgumentException("Checkpoint belongs to different matrices.");
+
+            int[] stored = readInts(channel, k * (1 + n * n));
+            for (int g = 0; g < k; g++) {
+                int offset = g * (1 + n * n);
+                boolean same = stored[offset] == cap(generators[g]);
+                for (int i = 0; i < n * n && same; i++) same = stored[offset + 1 + i] == generators[g].get(i / n, i % n);
+                if (!same) throw new IllegalArgumentException("Checkpoint belongs to different matrices.");
+            }
+
+            int[] counters = readInts(channel, 5);
+            MatrixSet.Snapshot products = MatrixSet.Snapshot.readFrom(channel, n, counters[4]);
+            return new State(generators, counters[0], counters[1], counters[2], counters[3], products);
+        }
+    }
+
+    private static int cap(TropicalMatrix matrix) {
+        return matrix instanceof CappedTropicalMatrix capped ? capped.cap() : -1;
+    }
+
+    private static int[] readInts(FileChannel channel, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * count);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Checkpoint is truncated.");
+        }
+        buffer.flip();
+        int[] ints = new int[count];
+        buffer.asIntBuffer().get(ints);
+        return ints;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example;
+
+/**
+ * Observer of a closure computation (see setListener() of FroidurePin, SemigroupClosure and ExternalClosure).
+ * Both methods are called by the thread that calls run(), between two generations, so they should return quickly
+ * (see ClosureStatisticsReporter for a sampling reporter).
+ * */
+@FunctionalInterface
+public interface ClosureListener {
+
+    /** Called after every completed generation */
+    void onGeneration(ClosureStatistics statistics);
+
+    /** Called when run() returns, with the final statistics and the result */
+    default void onFinish(ClosureStatistics statistics, SemigroupClosure.Result result) {
+    }
+}
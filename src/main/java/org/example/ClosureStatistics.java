@@ -0,0 +1,17 @@
+package org.example;
+
+/**
+ * Statistics of a closure (FroidurePin, SemigroupClosure or ExternalClosure) after a generation, see ClosureListener.
+ * generation is the number of fully expanded generations (as in SemigroupClosure.Result), frontierSize the number of products
+ * of the next generation, size the number of distinct products found so far (including the identity), products the number of
+ * matrix multiplications computed so far and duplicates the number of those that gave an already known product.
+ * retainedBytes is an estimate of the memory held by the closure (for ExternalClosure: the size of its files).
+ * */
+public record ClosureStatistics(int generation, long frontierSize, long size, long products, long duplicates,
+                                int maxValue, long elapsedNanos, long retainedBytes) {
+
+    /** Fraction of the computed products that were already known */
+    public double duplicateRate() {
+        return products == 0 ? 0 : (double) duplicates / products;
+    }
+}
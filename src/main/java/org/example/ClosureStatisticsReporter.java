@@ -0,0 +1,136 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * ClosureListener that writes the statistics as CSV (with a header line) or JSON lines.
+ * Generations are sampled: a line is written for the first generation, then at most once per intervalNanos
+ * (of the elapsed time of the closure), and always for the final state of every run().
+ * The reporter may be shared by several closures (e.g. the workers of BatchSearch): each closure gets its own listener(closureId),
+ * which samples independently and tags its lines with the id, and the lines are written atomically.
+ * The reporter itself is the listener of a single closure with the empty id.
+ * */
+public class ClosureStatisticsReporter implements ClosureListener, Closeable {
+    public enum Format { CSV, JSONL }
+
+    private static final String CSV_HEADER = "closure,generation,frontierSize,size,products,duplicates,duplicateRate,maxValue,elapsedNanos,retainedBytes,status";
+
+    private final Writer out;
+    private final Format format;
+    private final long intervalNanos;
+    private final Sampler defaultSampler = new Sampler("");
+    private boolean headerWritten;
+
+    public ClosureStatisticsReporter(Writer out, Format format, long intervalNanos) {
+        if (intervalNanos < 0) throw new IllegalArgumentException("intervalNanos must be non-negative.");
+        this.out = out;
+        this.format = format;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /** Reporter that writes to the given file (replaced if it exists), as JSONL if its name ends with ".jsonl", otherwise as CSV */
+    public static ClosureStatisticsReporter open(Path file, long intervalNanos) throws IOException {
+        Format format = file.getFileName().toString().endsWith(".jsonl") ? Format.JSONL : Format.CSV;
+        return new ClosureStatisticsReporter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), format, intervalNanos);
+    }
+
+    /** Listener for one closure (use a new one for every closure), whose lines are tagged with closureId */
+    public ClosureListener listener(String closureId) {
+        if (closureId == null) throw new IllegalArgumentException("closureId is null.");
+        return new Sampler(closureId);
+    }
+
+    @Override
+    public void onGeneration(ClosureStatistics statistics) {
+        defaultSampler.onGeneration(statistics);
+    }
+
+    @Override
+    public void onFinish(ClosureStatistics statistics, SemigroupClosure.Result result) {
+        defaultSampler.onFinish(statistics, result);
+    }
+
+    // sampling state of one closure (elapsedNanos is measured from the start of that closure)
+    private final class Sampler implements ClosureListener {
+        private final String id;
+        private long nextNanos;
+
+        Sampler(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void onGeneration(ClosureStatistics statistics) {
+            synchronized (ClosureStatisticsReporter.this) {
+                if (statistics.elapsedNanos() < nextNanos) return;
+                nextNanos = statistics.elapsedNanos() + intervalNanos;
+                write(id, statistics, null);
+            }
+        }
+
+        @Override
+        public void onFinish(ClosureStatistics statistics, SemigroupClosure.Result result) {
+            synchronized (ClosureStatisticsReporter.this) {
+                nextNanos = 0;  // the next run() starts with a line again
+                write(id, statistics, result.status());
+                flush();
+            }
+        }
+    }
+
+    private void write(String id, ClosureStatistics s, SemigroupClosure.Status status) {
+        try {
+            if (format == Format.CSV) {
+                if (!headerWritten) out.write(CSV_HEADER + "\n");
+                headerWritten = true;
+                out.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%.6f,%d,%d,%d,%s\n", csv(id),
+                        s.generation(), s.frontierSize(), s.size(), s.products(), s.duplicates(), s.duplicateRate(),
+                        s.maxValue(), s.elapsedNanos(), s.retainedBytes(), status == null ? "" : status));
+            } else {
+                out.write(String.format(Locale.ROOT,
+                        "{\"closure\":\"%s\",\"generation\":%d,\"frontierSize\":%d,\"size\":%d,\"products\":%d,\"duplicates\":%d,\"duplicateRate\":%.6f,"
+                                + "\"maxValue\":%d,\"elapsedNanos\":%d,\"retainedBytes\":%d%s}\n", json(id),
+                        s.generation(), s.frontierSize(), s.size(), s.products(), s.duplicates(), s.duplicateRate(),
+                        s.maxValue(), s.elapsedNanos(), s.retainedBytes(), status == null ? "" : ",\"status\":\"" + status + "\""));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // quoted if it contains a separator, quote or line break
+    private static String csv(String value) {
+        if (value.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') escaped.append('\\').append(c);
+            else if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+            else escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
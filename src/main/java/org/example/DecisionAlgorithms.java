@@ -1,43 +1,67 @@
 package org.example;
 
-import org.example.Matrix.BooleanMatrix;
+import org.example.Matrix.BitMatrix;
+import org.example.Matrix.CappedTropicalMatrix;
 import org.example.Matrix.TropicalMatrix;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class DecisionAlgorithms {
 
     /**
-     * Iteratively builds all words of a certain length.
+     * Iteratively builds all words of a certain length, only multiplying products of words that are not known to be equal
+     * to a shorter word (see FroidurePin).
      * If the instance is bounded, this will terminate, because some iteration will not add new products.
+     * If some product has powers whose entries grow without bound, the instance is certainly unbounded and this returns false immediately.
      * If this doesn't terminate within timeoutSeconds, it assumes that the instance is unbounded.
      * Without the timeout, this would never terminate on an unbounded instance, effectively "semi-deciding" the problem.
      * */
     public static boolean semiDecide(TropicalMatrix[] matrices, double timeoutSeconds) {
         if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
-        int n = matrices[0].size();
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("semiDecide", matrices);
+        SemigroupClosure.Result result = new FroidurePin(matrices).run(deadline(timeoutSeconds), SemigroupClosure.NO_BOUND);
+        FlightRecorderEvents.endDecision(event, result);
+        return result.bounded();
+    }
 
-        Set<TropicalMatrix> partialSet = new HashSet<>();   // only keeps results from words with the same length (from last iteration)
-        Set<TropicalMatrix> fullSet = new HashSet<>();      // keeps results from words of all lengths
-        partialSet.add(new TropicalMatrix(n));
-        fullSet.add(new TropicalMatrix(n));
-
-        long endTime = System.currentTimeMillis() + Math.round(timeoutSeconds * 1000);
-        while (System.currentTimeMillis() < endTime) {
-            Set<TropicalMatrix> next = new HashSet<>();
-            for (TropicalMatrix m1 : partialSet) {
-                for (TropicalMatrix m2 : matrices) {
-                    next.add(m1.times(m2));
-                }
-            }
-            if (partialSet.equals(next) || fullSet.containsAll(next)) return true;
-            fullSet.addAll(next);
-            partialSet = next;
-        }
+    /**
+     * Same as semiDecide(), but each iteration is computed on all threads of the given pool (see SemigroupClosure).
+     * The result is identical to the sequential version (apart from the timeout, which is reached later).
+     * */
+    public static boolean semiDecide(TropicalMatrix[] matrices, double timeoutSeconds, ForkJoinPool pool) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("semiDecideParallel", matrices);
+        SemigroupClosure.Result result = new SemigroupClosure(matrices, pool).run(deadline(timeoutSeconds), SemigroupClosure.NO_BOUND);
+        FlightRecorderEvents.endDecision(event, result);
+        return result.bounded();
+    }
+
+    /**
+     * Same as semiDecide(TropicalMatrix[], double, ForkJoinPool) (sequential if pool is null), but the closure is checkpointed
+     * to the given file about every checkpointIntervalSeconds and when the timeout is reached, and it is continued from that file
+     * if it already exists (e.g. after the previous run was killed or timed out). The timeout only applies to this run.
+     * Once the result is final (not TIMED_OUT), the file is deleted, so calling this again computes the result from scratch.
+     * The result is identical to an uninterrupted run (apart from the timeout).
+     * */
+    public static SemigroupClosure.Result semiDecideResumable(TropicalMatrix[] matrices, double timeoutSeconds, ForkJoinPool pool,
+                                                              Path checkpoint, double checkpointIntervalSeconds) throws IOException {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        return runResumable("semiDecideResumable", matrices, matrices, pool, checkpoint, checkpointIntervalSeconds,
+                deadline(timeoutSeconds), SemigroupClosure.NO_BOUND);
+    }
 
-        return false;
+    /**
+     * Same as semiDecide(), but all products are kept in files in the given directory instead of the heap (see ExternalClosure),
+     * so the closure is only limited by the free disk space. The files are deleted afterwards.
+     * */
+    public static boolean semiDecide(TropicalMatrix[] matrices, double timeoutSeconds, Path spillDirectory) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        return runExternal("semiDecideExternal", matrices, spillDirectory, deadline(timeoutSeconds), SemigroupClosure.NO_BOUND).bounded();
     }
 
     /**
@@ -45,118 +69,212 @@ public class DecisionAlgorithms {
      * The first entry in the returned list is 1 or 0 corresponding to true or false of semiDecide(),
      * the second entry is the maximum value (less than infinity) of all entries in all words,
      * that was found either before returning true (in which case it is the correct bound)
-     * or before the timeout (in which case it may be used as an indicator that the timeout is set too low).
+     * or before the timeout (in which case it may be used as an indicator that the timeout is set too low)
+     * or before a word with unbounded powers was found (in which case it is meaningless, see semiDecideResult()).
      * */
     public static List<Integer> semiDecideMaxValue(TropicalMatrix[] matrices, double timeoutSeconds) {
+        SemigroupClosure.Result result = semiDecideResult(matrices, timeoutSeconds);
+        return List.of(result.bounded() ? 1 : 0, result.maxValue());
+    }
+
+    /**
+     * Same as semiDecideMaxValue(), but returns the whole result, whose status distinguishes instances that timed out
+     * (TIMED_OUT, presumed unbounded) from instances that are certainly unbounded (UNBOUNDED).
+     * */
+    public static SemigroupClosure.Result semiDecideResult(TropicalMatrix[] matrices, double timeoutSeconds) {
         if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
-        int n = matrices[0].size();
+        return semiDecideResult(matrices, timeoutSeconds, null);
+    }
 
-        Set<TropicalMatrix> partialSet = new HashSet<>();
-        Set<TropicalMatrix> fullSet = new HashSet<>();
-        partialSet.add(new TropicalMatrix(n));
-        fullSet.add(new TropicalMatrix(n));
-
-        boolean bounded = false;
-        long endTime = System.currentTimeMillis() + Math.round(timeoutSeconds * 1000);
-        while (System.currentTimeMillis() < endTime) {
-            Set<TropicalMatrix> next = new HashSet<>();
-            for (TropicalMatrix m1 : partialSet) {
-                for (TropicalMatrix m2 : matrices) {
-                    next.add(m1.times(m2));
-                }
-            }
-            if (partialSet.equals(next) || fullSet.containsAll(next)) {
-                bounded = true;
-                break;
-            }
-            fullSet.addAll(next);
-            partialSet = next;
-        }
-        int max = 0;
-        for (TropicalMatrix m : fullSet) {
-            max = Math.max(max, m.maxValue());
-        }
-        return List.of(bounded ? 1 : 0, max);
+    /** Same as semiDecideResult(TropicalMatrix[], double), but the listener is notified after every generation (see ClosureListener) */
+    public static SemigroupClosure.Result semiDecideResult(TropicalMatrix[] matrices, double timeoutSeconds, ClosureListener listener) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        FroidurePin froidurePin = new FroidurePin(matrices);
+        froidurePin.setListener(listener);
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("semiDecideResult", matrices);
+        SemigroupClosure.Result result = froidurePin.run(deadline(timeoutSeconds), SemigroupClosure.NO_BOUND);
+        FlightRecorderEvents.endDecision(event, result);
+        return result;
+    }
+
+    /** Parallel version of semiDecideMaxValue(), see semiDecide(TropicalMatrix[], double, ForkJoinPool) */
+    public static List<Integer> semiDecideMaxValue(TropicalMatrix[] matrices, double timeoutSeconds, ForkJoinPool pool) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("semiDecideMaxValueParallel", matrices);
+        SemigroupClosure.Result result = new SemigroupClosure(matrices, pool).run(deadline(timeoutSeconds), SemigroupClosure.NO_BOUND);
+        FlightRecorderEvents.endDecision(event, result);
+        return List.of(result.bounded() ? 1 : 0, result.maxValue());
     }
 
     /**
-     * Efficient algorithm to decide the problem in the special case that the input is only a single matrix.
+     * Efficient algorithm to decide the problem in the special case that the input is only a single matrix:
+     * The powers are bounded iff every cycle of the graph of the matrix can reach a zero-weight cycle and return,
+     * i.e. iff every strongly connected component that contains a cycle contains a vertex on a cycle of zero-weight edges.
+     * The latter are the vertices of the cyclic components of the zero-edge subgraph, so this takes O(n^2).
      * */
     public static boolean decideOneMatrix(TropicalMatrix matrix) {
-        int n = matrix.size();
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("decideOneMatrix", matrix.size(), 1);
+        boolean bounded = hasZeroCycleInEveryCycle(matrix);
+        FlightRecorderEvents.endDecision(event, bounded);
+        return bounded;
+    }
 
-        boolean[] zeroLoop = new boolean[n];
-        TropicalMatrix product = new TropicalMatrix(n);
-        for (int i = 0; i < n; i++) {
-            product.timesInPlace(matrix);
-            for (int j = 0; j < n; j++) {
-                if (product.get(j, j) == 0) zeroLoop[j] = true;
-            }
-        }
+    private static boolean hasZeroCycleInEveryCycle(TropicalMatrix matrix) {
+        StronglyConnectedComponents components = new StronglyConnectedComponents(matrix, TropicalMatrix.INF - 1);
+        StronglyConnectedComponents zeroComponents = new StronglyConnectedComponents(matrix, 0);
 
-        BooleanMatrix abstraction = matrix.booleanAbstraction();
-        BooleanMatrix reachable = abstraction.transitiveClosure();
-        for (int i = 0; i < n; i++) {
-            if (reachable.get(i, i) == 0) continue;
-            boolean zeroLoopIsReachable = false;
-            for (int j = 0; j < n; j++) {
-                if (reachable.get(i, j) == 1 && zeroLoop[j] && reachable.get(j, i) == 1) {
-                    zeroLoopIsReachable = true;
-                    break;
-                }
-            }
-            if (!zeroLoopIsReachable) return false;
+        boolean[] hasZeroCycle = new boolean[components.count()];
+        for (int v = 0; v < matrix.size(); v++) {
+            if (zeroComponents.isCyclic(zeroComponents.component(v))) hasZeroCycle[components.component(v)] = true;
+        }
+        for (int c = 0; c < components.count(); c++) {
+            if (components.isCyclic(c) && !hasZeroCycle[c]) return false;
         }
         return true;
     }
 
+    /**
+     * Exact algorithm for the general problem (more than one matrix allowed, no timeout and no conjectured bound):
+     * The entries of the matrices are abstracted to 0, 1, ω (unbounded) and ∞, and the abstractions are closed under products
+     * and the stabilization of idempotents, which describes arbitrarily high powers (see StabilizationMonoid).
+     * The instance is unbounded iff this closure contains an ω entry.
+     * This does not compute the bound itself (use semiDecideMaxValue() for that, which terminates on bounded instances).
+     * */
+    public static boolean decideExact(TropicalMatrix[] matrices) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("decideExact", matrices);
+        boolean bounded = new StabilizationMonoid(matrices).run(SemigroupClosure.NO_DEADLINE) == StabilizationMonoid.Result.BOUNDED;
+        FlightRecorderEvents.endDecision(event, bounded);
+        return bounded;
+    }
+
     /**
      * This is a full algorithm for the general problem (more than one matrix allowed),
      * IF the proposed bound is proven to be correct ((dimension - 1) * 2 * maxValue * matrices.length).
      * It essentially does the same thing as semiDecide(), without the need for a timeout, but instead terminating
      * when the bound is exceeded (which will eventually happen if the instance is unbounded).
+     * The products are capped at the bound (see decideWithCap()), so the closure is finite in any case.
+     * If the bound is too large for CappedTropicalMatrix, the products are exact instead (as in semiDecide() without timeout).
+     * Throws an IllegalArgumentException if the bound is so large that the products could overflow.
      * */
     public static boolean decideWithBound(TropicalMatrix[] matrices) {
         if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
-        int dimension = matrices[0].size();
-        int maxValue = 0;
-        for (TropicalMatrix matrix : matrices) {
-            maxValue = Math.max(maxValue, matrix.maxValue());
-        }
+        int bound = conjecturedBound(matrices);
+        return runCapped("decideWithBound", matrices, cappedAtBound(matrices, bound), bound);
+    }
 
-        final int bound = (dimension - 1) * 2 * maxValue * matrices.length;
+    /** Same as decideWithBound(), but each iteration is computed on all threads of the given pool (see SemigroupClosure) */
+    public static boolean decideWithBound(TropicalMatrix[] matrices, ForkJoinPool pool) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
+        int bound = conjecturedBound(matrices);
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision("decideWithBoundParallel", matrices);
+        SemigroupClosure.Result result = new SemigroupClosure(cappedAtBound(matrices, bound), pool).run(SemigroupClosure.NO_DEADLINE, bound);
+        FlightRecorderEvents.endDecision(event, result);
+        return result.bounded();
+    }
 
-        Set<TropicalMatrix> partialSet = new HashSet<>();   // only keeps results from words with the same length (-> from last iteration)
-        Set<TropicalMatrix> fullSet = new HashSet<>();      // keeps results from words of all lengths (-> from all iterations)
-        partialSet.add(new TropicalMatrix(dimension));
-        fullSet.add(new TropicalMatrix(dimension));
+    /** Same as decideWithBound(), but all products are kept in files in the given directory instead of the heap (see ExternalClosure) */
+    public static boolean decideWithBound(TropicalMatrix[] matrices, Path spillDirectory) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
+        int bound = conjecturedBound(matrices);
+        return runExternal("decideWithBoundExternal", cappedAtBound(matrices, bound), spillDirectory, SemigroupClosure.NO_DEADLINE, bound).bounded();
+    }
 
-        while (true) {
-            Set<TropicalMatrix> next = new HashSet<>();
-            for (TropicalMatrix m1 : partialSet) {
-                for (TropicalMatrix m2 : matrices) {
-                    next.add(m1.times(m2));
-                }
-            }
+    /**
+     * Same as decideWithBound(TropicalMatrix[], ForkJoinPool) (sequential if pool is null), but checkpointed and resumed like
+     * semiDecideResumable(): the checkpoint stores the capped generators (including the cap), so it can only be resumed for
+     * the same instance. Since decideWithBound() always terminates, timeoutSeconds only limits the length of this run
+     * (the status is TIMED_OUT if it was reached, and the next call continues from the checkpoint).
+     * */
+    public static SemigroupClosure.Result decideWithBoundResumable(TropicalMatrix[] matrices, double timeoutSeconds, ForkJoinPool pool,
+                                                                   Path checkpoint, double checkpointIntervalSeconds) throws IOException {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
+        int bound = conjecturedBound(matrices);
+        return runResumable("decideWithBoundResumable", matrices, cappedAtBound(matrices, bound), pool, checkpoint, checkpointIntervalSeconds,
+                deadline(timeoutSeconds), bound);
+    }
 
-            if (partialSet.equals(next) || fullSet.containsAll(next)) {
-                return true;
-            }
+    /**
+     * Decides whether all finite entries of all words are at most cap (which implies that the instance is bounded).
+     * The products are computed in the saturating semiring of CappedTropicalMatrix, where all values greater than cap are
+     * the same, so the closure is finite and this always terminates (without relying on the instance being unbounded).
+     * */
+    public static boolean decideWithCap(TropicalMatrix[] matrices, int cap) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
+        return runCapped("decideWithCap", matrices, capped(matrices, cap), cap);
+    }
 
-            int max = 0;
-            for (TropicalMatrix m : next) {
-                max = Math.max(max, m.maxValue());
-            }
+    // algorithm is the name in the flight recorder event (see FlightRecorderEvents)
+    private static boolean runCapped(String algorithm, TropicalMatrix[] matrices, TropicalMatrix[] generators, int cap) {
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision(algorithm, matrices);
+        SemigroupClosure.Result result = new FroidurePin(generators).run(SemigroupClosure.NO_DEADLINE, cap);
+        FlightRecorderEvents.endDecision(event, result);
+        return result.bounded();
+    }
 
-            if (max > bound) {
-                return false;
-            }
+    private static SemigroupClosure.Result runResumable(String algorithm, TropicalMatrix[] matrices, TropicalMatrix[] generators, ForkJoinPool pool,
+                                                        Path checkpoint, double checkpointIntervalSeconds, long deadlineMillis, int bound) throws IOException {
+        SemigroupClosure closure = Files.exists(checkpoint)
+                ? SemigroupClosure.resume(checkpoint, generators, pool)
+                : new SemigroupClosure(generators, pool);
+        closure.enableCheckpoints(checkpoint, Math.round(checkpointIntervalSeconds * 1000));
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision(algorithm, matrices);
+        SemigroupClosure.Result result = closure.run(deadlineMillis, bound);
+        FlightRecorderEvents.endDecision(event, result);
+        // only an unfinished closure is continued, a resumed final state would be expanded beyond its result
+        if (result.status() == SemigroupClosure.Status.TIMED_OUT) closure.checkpoint();
+        else closure.deleteCheckpoint();
+        return result;
+    }
+
+    private static SemigroupClosure.Result runExternal(String algorithm, TropicalMatrix[] matrices, Path directory, long deadlineMillis, int bound) {
+        FlightRecorderEvents.DecisionEvent event = FlightRecorderEvents.beginDecision(algorithm, matrices);
+        try (ExternalClosure closure = new ExternalClosure(matrices, directory)) {
+            SemigroupClosure.Result result = closure.run(deadlineMillis, bound);
+            FlightRecorderEvents.endDecision(event, result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static TropicalMatrix[] capped(TropicalMatrix[] matrices, int cap) {
+        TropicalMatrix[] capped = new TropicalMatrix[matrices.length];
+        for (int i = 0; i < matrices.length; i++) {
+            capped[i] = new CappedTropicalMatrix(matrices[i], cap);
+        }
+        return capped;
+    }
+
+    // capped at bound if it fits into the saturating semiring, otherwise the exact matrices (the closure then stops when the bound is exceeded)
+    private static TropicalMatrix[] cappedAtBound(TropicalMatrix[] matrices, int bound) {
+        return bound <= CappedTropicalMatrix.MAX_CAP ? capped(matrices, bound) : matrices;
+    }
 
-            fullSet.addAll(next);
-            partialSet = next;
+    // (dimension - 1) * 2 * maxValue * matrices.length, see decideWithBound()
+    private static int conjecturedBound(TropicalMatrix[] matrices) {
+        int dimension = matrices[0].size();
+        int maxValue = 0;
+        for (TropicalMatrix matrix : matrices) {
+            maxValue = Math.max(maxValue, matrix.maxValue());
+        }
+        long bound;
+        try {
+            bound = Math.multiplyExact(Math.multiplyExact(2L * (dimension - 1), maxValue), matrices.length);
+        } catch (ArithmeticException e) {
+            bound = Long.MAX_VALUE;
         }
+        // the closures multiply products (at most bound) with generators (at most maxValue), which must not overflow
+        if (bound >= TropicalMatrix.INF - maxValue) {
+            throw new IllegalArgumentException("The conjectured bound (dimension - 1) * 2 * maxValue * matrices.length is too large "
+                    + "(dimension " + dimension + ", maxValue " + maxValue + ", " + matrices.length + " matrices).");
+        }
+        return (int) bound;
     }
 
+    private static long deadline(double timeoutSeconds) {
+        return System.currentTimeMillis() + Math.round(timeoutSeconds * 1000);
+    }
 
     /**
      * This algorithm is outdated, because the proposed condition is not equivalent to the unboundedness of the instance:
@@ -168,20 +286,22 @@ public class DecisionAlgorithms {
         if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices array is null or empty.");
         int n = matrices[0].size();
 
-        BooleanMatrix zeroIntersection = new BooleanMatrix(n, 1);   // (i, j) edge has weight 0 in all matrices iff zeroIntersection[i][j] == 1
+        BitMatrix zeroIntersection = new BitMatrix(n);   // (i, j) edge has weight 0 in all matrices iff zeroIntersection[i][j] == 1
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
+                boolean allZero = true;
                 for (TropicalMatrix matrix : matrices) {
                     if (matrix.get(i, j) > 0) {
-                        zeroIntersection.set(i, j, 0);
+                        allZero = false;
                         break;
                     }
                 }
+                if (allZero) zeroIntersection.set(i, j, 1);
             }
         }
 
         boolean[] zeroLoop = new boolean[n];    // given an arbitrary word (of specific length or a multiple), node i can reach itself with only 0-edges iff zeroLoop[i] == true
-        BooleanMatrix product = new BooleanMatrix(zeroIntersection);    // only used to calculate zeroLoop
+        BitMatrix product = new BitMatrix(zeroIntersection);    // only used to calculate zeroLoop
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
                 if (product.get(j, j) == 1) {
@@ -191,22 +311,24 @@ public class DecisionAlgorithms {
             product.timesInPlace(zeroIntersection);
         }
 
-        BooleanMatrix edgeUnion = new BooleanMatrix(n, 0); // there is an (i, j) edge in some matrix iff edgeUnion[i][j] == 1
-        BooleanMatrix edgeIntersection = new BooleanMatrix(n, 1); // there is an (i, j) edge in every matrix iff edgeUnion[i][j] == 1
+        BitMatrix edgeUnion = new BitMatrix(n); // there is an (i, j) edge in some matrix iff edgeUnion[i][j] == 1
+        BitMatrix edgeIntersection = new BitMatrix(n); // there is an (i, j) edge in every matrix iff edgeUnion[i][j] == 1
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
+                boolean inAll = true;
                 for (TropicalMatrix matrix : matrices) {
                     if (matrix.get(i, j) < Integer.MAX_VALUE) {
                         edgeUnion.set(i, j, 1);
                     } else {
-                        edgeIntersection.set(i, j, 0);
+                        inAll = false;
                     }
                 }
+                if (inAll) edgeIntersection.set(i, j, 1);
             }
         }
 
-        BooleanMatrix pathUnion = edgeUnion.transitiveClosure();
-        BooleanMatrix pathIntersection = edgeIntersection.transitiveClosure();
+        BitMatrix pathUnion = edgeUnion.transitiveClosure();
+        BitMatrix pathIntersection = edgeIntersection.transitiveClosure();
 
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
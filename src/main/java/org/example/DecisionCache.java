@@ -0,0 +1,67 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caches decision results per isomorphism class of instances (see InstanceCanonicalizer),
+ * so that every class is only decided once, no matter how its matrices are ordered or its vertices are numbered.
+ * The decision is always computed on the canonical representative. Thread-safe.
+ * */
+public class DecisionCache<V> {
+    private final Map<Key, V> cache = new ConcurrentHashMap<>();
+    private final int maxEntries;       // results are no longer stored (but still computed) once the cache is full
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DecisionCache(int maxEntries) {
+        if (maxEntries < 0) throw new IllegalArgumentException("maxEntries must be non-negative.");
+        this.maxEntries = maxEntries;
+    }
+
+    /** Cached result for the class of the instance, or decider applied to the canonical representative */
+    public V decide(TropicalMatrix[] matrices, Function<TropicalMatrix[], V> decider) {
+        int n = matrices[0].size();
+        Key key = new Key(n, InstanceCanonicalizer.canonicalEncoding(matrices));
+        V result = cache.get(key);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        result = decider.apply(InstanceCanonicalizer.fromEncoding(key.encoding, n));
+        if (cache.size() < maxEntries) cache.putIfAbsent(key, result);
+        return result;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /** Number of calls to decide() that were answered from the cache */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Number of calls to decide() that had to call the decider */
+    public long misses() {
+        return misses.sum();
+    }
+
+    private record Key(int n, int[] encoding) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.n == n && Arrays.equals(key.encoding, encoding);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * n + Arrays.hashCode(encoding);
+        }
+    }
+}
@@ -1,80 +1,11 @@
 package org.example;
 
+import org.example.Matrix.MatrixSet;
 import org.example.Matrix.TropicalMatrix;
 
-import java.util.*;
+import java.util.Arrays;
 
 public class Dijkstra {
-    static class Edge {
-        int target, weight;
-
-        Edge(int target, int weight) {
-            this.target = target;
-            this.weight = weight;
-        }
-    }
-
-    static class Graph {
-        int vertices;
-        List<List<Edge>> adj;
-
-        Graph(int vertices) {
-            this.vertices = vertices;
-            adj = new ArrayList<>();
-            for (int i = 0; i < vertices; i++) {
-                adj.add(new ArrayList<>());
-            }
-        }
-
-        void addEdge(int u, int v, int weight) {
-            adj.get(u).add(new Edge(v, weight));
-        }
-
-        /**
-         * Returns list of 2 lists: the first one only contains total distance, the second one contains the path
-         */
-        List<List<Integer>> dijkstra(int start, int end) {
-            int[] dist = new int[vertices];
-            int[] prev = new int[vertices];
-            Arrays.fill(dist, Integer.MAX_VALUE);
-            Arrays.fill(prev, -1);
-            dist[start] = 0;
-
-            PriorityQueue<int[]> pq = new PriorityQueue<>(Comparator.comparingInt(a -> a[1]));
-            pq.offer(new int[]{start, 0});
-
-            while (!pq.isEmpty()) {
-                int[] current = pq.poll();
-                int u = current[0], d = current[1];
-
-                if (u == end) break;
-
-                if (d > dist[u]) continue;
-
-                for (Edge edge : adj.get(u)) {
-                    int v = edge.target;
-                    int weight = edge.weight;
-                    if (dist[u] + weight < dist[v]) {
-                        dist[v] = dist[u] + weight;
-                        prev[v] = u;
-                        pq.offer(new int[]{v, dist[v]});
-                    }
-                }
-            }
-
-            if (dist[end] == Integer.MAX_VALUE) return null;
-            List<Integer> path = new ArrayList<>();
-            for (int at = end; at != -1; at = prev[at]) {
-                path.add(at);
-            }
-            Collections.reverse(path);
-            List<List<Integer>> result = new ArrayList<>(2);
-            result.add(List.of(dist[end]));
-            result.add(path);
-            return result;
-        }
-    }
-
     /**
      * Given a word over the set of matrices, this calculates the shortest path from start to end
      * (1 <= start, end <= n) in the encoded word. The length of the word is given by wordLength,
@@ -84,6 +15,20 @@ public class Dijkstra {
      * on the shortest path, the path itself and the weights on the path are printed.
      */
     public static void tropicalDijkstra(TropicalMatrix[] matrices, int start, int end, int wordLength, int word) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        int[] indices = new int[wordLength];
+        for (int i = 0; i < wordLength; i++) {
+            indices[wordLength - 1 - i] = word % matrices.length;
+            word /= matrices.length;
+        }
+        tropicalDijkstra(matrices, start, end, indices);
+    }
+
+    /**
+     * Same as tropicalDijkstra(TropicalMatrix[], int, int, int, int), but the word is given as its letters (0-based indices of matrices),
+     * so it may be arbitrarily long. The path is computed by WordPaths.
+     * */
+    public static void tropicalDijkstra(TropicalMatrix[] matrices, int start, int end, int[] word) {
         if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
         int n = matrices[0].size();
 
@@ -94,81 +39,98 @@ public class Dijkstra {
             System.out.println(m + "\n");
         }
 
-        int[] indices = new int[wordLength];
-        for (int i = 0; i < wordLength; i++) {
-            indices[wordLength - 1 - i] = word % matrices.length;
-            word /= matrices.length;
-        }
-
-        System.out.println("Word: " + Arrays.stream(indices).map(i -> i + 1).boxed().toList());
+        System.out.println("Word: " + Arrays.stream(word).map(i -> i + 1).boxed().toList());
 
-        TropicalMatrix resultingMatrix = new TropicalMatrix(n);
-        for (int i = 0; i < wordLength; i++) {
-            resultingMatrix.timesInPlace(matrices[indices[i]]);
-        }
-        System.out.println("Resulting Matrix:\n" + resultingMatrix + "\n");
+        WordPaths paths = new WordPaths(matrices, word);
+        System.out.println("Resulting Matrix:\n" + paths.product() + "\n");
 
-        Graph graph = new Graph((wordLength + 1) * n);
-        for (int i = 0; i < wordLength; i++) {
-            TropicalMatrix cur = matrices[indices[i]];
-            for (int j = 0; j < n; j++) {
-                for (int k = 0; k < n; k++) {
-                    int weight = cur.get(j, k);
-                    if (weight == Integer.MAX_VALUE) continue;
-                    graph.addEdge(i * n + j, (i + 1) * n + k, weight);
-                }
-            }
+        WordPaths.Path path = paths.path(start - 1, end - 1);     // subtract 1, because 1 <= start, end <= n is expected as input
+        System.out.println("Shortest path from " + start + " to " + end + ":");
+        if (path == null) {
+            System.out.println("No path.");
+            return;
         }
+        System.out.println("Total distance: " + path.distance());
+        System.out.println("Path:\t" + Arrays.stream(path.vertices()).map(k -> k + 1).boxed().toList());
+        System.out.println("Weights:  " + Arrays.stream(path.weights()).boxed().toList());
+        System.out.println("Matrices: " + Arrays.stream(word).map(i -> i + 1).boxed().toList() + " (same as \"word\")");
+    }
 
-        List<List<Integer>> dijkstra = graph.dijkstra(start - 1, wordLength * n + end - 1);     // subtract 1, because 1 <= start, end <= n is expected as input
-        int distance = dijkstra.getFirst().getFirst();
-        List<Integer> path = dijkstra.get(1).stream().map(k -> k % n).toList();
-        List<Integer> weights = new ArrayList<>(path.size() - 1);
-        for (int i = 0; i < path.size() - 1; i++) {
-            weights.add(matrices[indices[i]].get(path.get(i), path.get(i + 1)));
-        }
-        System.out.println("Shortest path from " + start + " to " + end + ":");
-        System.out.println("Total distance: " + distance);
-        System.out.println("Path:\t" + path.stream().map(k -> k + 1).toList());
-        System.out.println("Weights:  " + weights);
-        System.out.println("Matrices: " + Arrays.stream(indices).map(i -> i + 1).boxed().toList() + " (same as \"word\")");
+    /**
+     * A shortest (and among those lexicographically smallest) word whose product contains the maximum value of all products
+     * at (start, end), and a shortest path from start to end through the layers of that word (0-based)
+     * */
+    public record MaxValueWitness(int[] word, int start, int end, WordPaths.Path path) {
     }
 
     /**
-     * Assuming that the instance passed to this method is bounded (which is checked by semiDecide()),
+     * Assuming that the instance passed to this method is bounded (which is checked by enumerating all products;
+     * instances that are proven unbounded and enumerations that time out are rejected with different messages),
      * this method will determine the shortest word that produces the maximum value possible,
      * and then call tropicalDijkstra() on that entry to print the shortest path.
      * */
     public static void findMinPathForMaxValue(TropicalMatrix[] matrices) {
         if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
-        int n = matrices[0].size();
 
-        List<Integer> semiDecideResult = DecisionAlgorithms.semiDecideMaxValue(matrices, 10);
-        if (semiDecideResult.getFirst() == 0)
+        FroidurePin froidurePin = new FroidurePin(matrices);
+        SemigroupClosure.Result result = froidurePin.run(System.currentTimeMillis() + 10_000, SemigroupClosure.NO_BOUND);
+        if (result.status() == SemigroupClosure.Status.UNBOUNDED)
+            throw new IllegalArgumentException("This instance is unbounded: the powers of the word "
+                    + Arrays.stream(froidurePin.unboundednessWitness()).map(i -> i + 1).boxed().toList() + " grow without bound.");
+        if (result.status() == SemigroupClosure.Status.TIMED_OUT)
             throw new IllegalArgumentException("Semi-decide timed out. Either this instance is unbounded or you need to increase timeoutSeconds in this method.");
 
-        int maxValue = semiDecideResult.get(1);
+        findMinPathForMaxValue(froidurePin);
+    }
 
-        TropicalMatrix[] last = new TropicalMatrix[]{new TropicalMatrix(n)};
-        while (true) {
-            TropicalMatrix[] next = new TropicalMatrix[last.length * matrices.length];
-            for (int i = 0; i < last.length; i++) {
-                for (int j = 0; j < matrices.length; j++) {
-                    next[matrices.length * i + j] = last[i].times(matrices[j]);
-                }
-            }
-            for (int i = 0; i < next.length; i++) {
-                for (int j = 0; j < n; j++) {
-                    for (int k = 0; k < n; k++) {
-                        if (next[i].get(j, k) != maxValue) continue;
-                        // found word that produces the maximum value -> "i" already encodes the word (if you know the length)
-                        tropicalDijkstra(matrices, j+1, k+1, (int) Math.round(Math.log(next.length) / Math.log(matrices.length)), i);
-                        return;
+    /** Same as findMinPathForMaxValue(TropicalMatrix[]), but reuses a complete enumeration of the products (see maxValueWitness()) */
+    public static void findMinPathForMaxValue(FroidurePin froidurePin) {
+        MaxValueWitness witness = maxValueWitness(froidurePin);
+        if (witness == null) return;
+        tropicalDijkstra(froidurePin.generators(), witness.start() + 1, witness.end() + 1, witness.word());
+    }
+
+    /**
+     * Witness for the maximum value of a complete enumeration (the bound of a bounded instance), or null if no non-empty word exists.
+     * FroidurePin is a breadth-first search over the distinct products, in which every product points to its parent
+     * (the product of its word without the last letter) and that last letter, so the products are found in shortlex order
+     * of their words and the first product containing the maximum value belongs to the shortest (and lexicographically smallest) such word.
+     * This takes time proportional to the number of products, and the word is decoded from the parent pointers.
+     * */
+    public static MaxValueWitness maxValueWitness(FroidurePin froidurePin) {
+        if (!froidurePin.isComplete()) throw new IllegalArgumentException("Enumeration is not complete.");
+        int n = froidurePin.generators()[0].size();
+        int maxValue = froidurePin.maxValue();
+
+        // the identity only contains the maximum if it is 0, and is only a candidate if some non-empty word produces it
+        MatrixSet products = froidurePin.products();
+        int[] identityWord = maxValue == 0 ? froidurePin.nonEmptyWord(0) : null;
+        for (int id = 1; id < products.size(); id++) {
+            for (int j = 0; j < n; j++) {
+                for (int k = 0; k < n; k++) {
+                    if (products.get(id, j, k) != maxValue) continue;
+                    // found word that produces the maximum value
+                    int[] letters = froidurePin.word(id);
+                    if (identityWord != null && isShortlexSmaller(identityWord, letters)) {
+                        letters = identityWord;
+                        j = k = 0;
                     }
+                    return witness(froidurePin, letters, j, k);
                 }
             }
-            last = next;
         }
+        if (identityWord != null) {     // all generators are the identity
+            return witness(froidurePin, identityWord, 0, 0);
+        }
+        return null;
+    }
+
+    private static MaxValueWitness witness(FroidurePin froidurePin, int[] word, int start, int end) {
+        return new MaxValueWitness(word, start, end, new WordPaths(froidurePin.generators(), word).path(start, end));
+    }
+
+    private static boolean isShortlexSmaller(int[] a, int[] b) {
+        return a.length != b.length ? a.length < b.length : Arrays.compare(a, b) < 0;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,333 @@
+package org.example;
+
+import org.example.Matrix.MatrixSet;
+import org.example.Matrix.TropicalMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed version of SemigroupClosure, for closures that do not fit into the heap.
+ * <p>
+ * All products found so far are stored as fixed-width records (n * n ints) in bucket files, where the bucket of a matrix
+ * is given by a hash of its entries, and the frontier (the products found in the last generation) is a separate record file.
+ * A generation is computed with delayed duplicate detection:
+ * <ol>
+ *     <li>Expansion: the frontier is read through memory-mapped chunks, multiplied by all generators,
+ *     and every product is appended to the candidate file of its bucket, without looking it up.</li>
+ *     <li>Merge: for every bucket, the known products of that bucket are loaded into a MatrixSet, and the candidates
+ *     that are not in it are appended to both the bucket and the new frontier.</li>
+ * </ol>
+ * Hence only a single bucket has to fit into the heap at any time; the number of buckets should be chosen such that
+ * (expected number of products) * n * n * 4 bytes / buckets is well below the heap size.
+ * The files are kept in a new subdirectory of the given directory (so several closures may share a spill directory,
+ * and no other file in it is touched), which is deleted by close().
+ * */
+public class ExternalClosure implements Closeable {
+    public static final int DEFAULT_BUCKETS = 256;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;   // number of expanded matrices between two clock reads
+    private static final String ENGINE = "ExternalClosure";    // engine name in the flight recorder events
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;     // per open record file
+    private static final long MAP_CHUNK_BYTES = 1L << 28;      // max. size of a single memory-mapped region
+    private static final int READ_BATCH_RECORDS = 1024;
+
+    private final TropicalMatrix[] generators;
+    private final int n;
+    private final int width;            // ints per record (n * n)
+    private final Path directory;       // private subdirectory of the directory passed to the constructor
+    private final int buckets;
+    private final long[] bucketSizes;   // number of records in each bucket file
+    private long candidates;            // products written by the last expand()
+    private Path frontier;              // records found in the last generation
+    private long frontierSize;
+    private long size;
+    private int generation;
+    private int maxValue;
+    private long multiplications;
+    private long duplicates;            // multiplications that gave a known product
+    private final long startNanos = System.nanoTime();
+    private ClosureListener listener;
+
+    /** Uses DEFAULT_BUCKETS buckets */
+    public ExternalClosure(TropicalMatrix[] generators, Path directory) {
+        this(generators, directory, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Stores all files in a new subdirectory "closure-..." of the given directory
+     * (created if necessary, should be on a local disk with enough free space)
+     * */
+    public ExternalClosure(TropicalMatrix[] generators, Path directory, int buckets) {
+        if (generators == null || generators.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        if (buckets < 1) throw new IllegalArgumentException("buckets must be at least 1.");
+        this.generators = generators;
+        this.n = generators[0].size();
+        this.width = n * n;
+        this.buckets = buckets;
+        this.bucketSizes = new long[buckets];
+        for (TropicalMatrix generator : generators) {
+            if (generator.size() != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+        }
+
+        int[] identity = new int[width];
+        for (int i = 0; i < width; i++) identity[i] = i % (n + 1) == 0 ? 0 : TropicalMatrix.INF;
+        try {
+            Files.createDirectories(directory);
+            this.directory = Files.createTempDirectory(directory, "closure-");
+            frontier = this.directory.resolve("frontier-0.bin");
+            try (RecordWriter frontierWriter = new RecordWriter(frontier);
+                 RecordWriter bucketWriter = new RecordWriter(bucketFile(bucket(identity, 0)))) {
+                frontierWriter.write(identity, 0);
+                bucketWriter.write(identity, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bucketSizes[bucket(identity, 0)] = 1;
+        frontierSize = 1;
+        size = 1;
+    }
+
+    /**
+     * Computes generations until the closure saturates, the deadline (System.currentTimeMillis()) is reached,
+     * or a product has an entry greater than bound (see SemigroupClosure.run()).
+     * After TIMED_OUT, run() may be called again; the interrupted generation is then computed again from the start.
+     * */
+    public SemigroupClosure.Result run(long deadlineMillis, int bound) {
+        SemigroupClosure.Result result;
+        try {
+            result = expandGenerations(deadlineMillis, bound);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (listener != null) listener.onFinish(statistics(), result);
+        return result;
+    }
+
+    private SemigroupClosure.Result expandGenerations(long deadlineMillis, int bound) throws IOException {
+        while (frontierSize > 0) {
+            long previousSize = size;
+            FlightRecorderEvents.GenerationEvent event = FlightRecorderEvents.beginGeneration(ENGINE, generation, frontierSize);
+            if (!expand(deadlineMillis)) {
+                deleteCandidates();
+                FlightRecorderEvents.endGeneration(event, size, maxValue);
+                return result(SemigroupClosure.Status.TIMED_OUT);
+            }
+            boolean withinBound = merge(bound);
+            FlightRecorderEvents.endGeneration(event, size, maxValue);
+            multiplications += candidates;
+            duplicates += candidates - (size - previousSize);
+            if (!withinBound) return result(SemigroupClosure.Status.BOUND_EXCEEDED);
+            generation++;
+            if (listener != null) listener.onGeneration(statistics());
+        }
+        return result(SemigroupClosure.Status.SATURATED);
+    }
+
+    // writes all products (frontier element) * generator to the candidate files, returns false if the deadline was reached
+    private boolean expand(long deadlineMillis) throws IOException {
+        RecordWriter[] candidates = new RecordWriter[buckets];
+        this.candidates = 0;
+        try {
+            for (int bucket = 0; bucket < buckets; bucket++) candidates[bucket] = new RecordWriter(candidateFile(bucket));
+            int[] product = new int[width];
+            long[] expanded = {0};
+            return forEachRecord(frontier, (records, offset) -> {
+                if (expanded[0]++ % DEADLINE_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadlineMillis) return false;
+                for (TropicalMatrix generator : generators) {
+                    generator.multiplyLeft(records, offset, product, 0);
+                    candidates[bucket(product, 0)].write(product, 0);
+                }
+                this.candidates += generators.length;
+                return true;
+            });
+        } finally {
+            for (RecordWriter writer : candidates) {
+                if (writer != null) writer.close();
+            }
+        }
+    }
+
+    // moves all new candidates to their buckets and to the next frontier, returns false if some entry exceeds bound
+    private boolean merge(int bound) throws IOException {
+        Path next = directory.resolve("frontier-" + (generation + 1) + ".bin");
+        long nextSize = 0;
+        boolean exceeded = false;
+        Files.deleteIfExists(next);
+        try (RecordWriter nextWriter = new RecordWriter(next)) {
+            for (int bucket = 0; bucket < buckets && !exceeded; bucket++) {
+                Path candidateFile = candidateFile(bucket);
+                if (Files.size(candidateFile) == 0) continue;
+
+                MatrixSet known = new MatrixSet(n, (int) Math.min(Integer.MAX_VALUE / 2 / width, bucketSizes[bucket] + 1));
+                if (bucketSizes[bucket] > 0) {
+                    forEachRecord(bucketFile(bucket), (records, offset) -> {
+                        known.addIfAbsent(records, offset);
+                        return true;
+                    });
+                }
+                int knownSize = known.size();
+                try (RecordWriter bucketWriter = new RecordWriter(bucketFile(bucket))) {
+                    forEachRecord(candidateFile, (records, offset) -> {
+                        if (known.addIfAbsent(records, offset) < 0) return true;
+                        bucketWriter.write(records, offset);
+                        nextWriter.write(records, offset);
+                        return true;
+                    });
+                }
+                int added = known.size() - knownSize;
+                for (int id = knownSize; id < known.size(); id++) {
+                    int value = known.maxValue(id);
+                    if (value > maxValue) maxValue = value;
+                }
+                bucketSizes[bucket] += added;
+                size += added;
+                nextSize += added;
+                exceeded = maxValue > bound;
+            }
+        }
+        deleteCandidates();
+        Files.deleteIfExists(frontier);
+        frontier = next;
+        frontierSize = nextSize;
+        return !exceeded;
+    }
+
+    private void deleteCandidates() throws IOException {
+        for (int bucket = 0; bucket < buckets; bucket++) Files.deleteIfExists(candidateFile(bucket));
+    }
+
+    private SemigroupClosure.Result result(SemigroupClosure.Status status) {
+        return new SemigroupClosure.Result(status, maxValue, (int) Math.min(Integer.MAX_VALUE, size), generation);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Record files                                                       */
+    /* ------------------------------------------------------------------ */
+
+    private interface RecordConsumer {
+        /** Called with a record stored at records[offset...], returns false to stop */
+        boolean accept(int[] records, int offset) throws IOException;
+    }
+
+    // calls consumer for all records of the file in order (through memory-mapped chunks), returns false if it was stopped
+    private boolean forEachRecord(Path file, RecordConsumer consumer) throws IOException {
+        long recordBytes = 4L * width;
+        int[] batch = new int[READ_BATCH_RECORDS * width];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size() / recordBytes * recordBytes;
+            long chunkBytes = Math.max(1, MAP_CHUNK_BYTES / recordBytes) * recordBytes;
+            for (long position = 0; position < length; position += chunkBytes) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkBytes, length - position));
+                IntBuffer ints = chunk.order(ByteOrder.nativeOrder()).asIntBuffer();
+                while (ints.hasRemaining()) {
+                    int count = Math.min(READ_BATCH_RECORDS, ints.remaining() / width);
+                    ints.get(batch, 0, count * width);
+                    for (int i = 0; i < count; i++) {
+                        if (!consumer.accept(batch, i * width)) return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // buffered appending writer of records
+    private final class RecordWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(WRITE_BUFFER_BYTES, 4 * width)).order(ByteOrder.nativeOrder());
+
+        RecordWriter(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        void write(int[] src, int offset) throws IOException {
+            if (buffer.remaining() < 4 * width) flush();
+            for (int i = 0; i < width; i++) buffer.putInt(src[offset + i]);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private Path bucketFile(int bucket) {
+        return directory.resolve("bucket-" + bucket + ".bin");
+    }
+
+    private Path candidateFile(int bucket) {
+        return directory.resolve("candidates-" + bucket + ".bin");
+    }
+
+    private int bucket(int[] entries, int offset) {
+        long hash = 0;
+        for (int i = offset; i < offset + width; i++) hash = (hash + entries[i]) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 29;
+        return (int) Math.floorMod(hash, (long) buckets);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /** Number of distinct products found so far (including the identity) */
+    public long size() {
+        return size;
+    }
+
+    public int generation() {
+        return generation;
+    }
+
+    public int maxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Sets the listener that is notified after every generation (null to disable);
+     * the retained bytes of the statistics are the size of the bucket and frontier files
+     * */
+    public void setListener(ClosureListener listener) {
+        this.listener = listener;
+    }
+
+    private ClosureStatistics statistics() {
+        long bytes = 4L * width * (size + frontierSize);
+        return new ClosureStatistics(generation, frontierSize, size, multiplications, duplicates, maxValue, System.nanoTime() - startNanos, bytes);
+    }
+
+    /**
+     * Deletes the subdirectory of this closure with all its files, including those left by a failed generation
+     * (the directory passed to the constructor is kept)
+     * */
+    @Override
+    public void close() throws IOException {
+        if (!Files.exists(directory)) return;
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);     // files before their directories
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.example.Matrix.TropicalMatrix;
+
+/**
+ * Java Flight Recorder events of the closure engines and the decision algorithms, so that GC and CPU samples of a recording
+ * can be related to generations and decisions. All events are disabled by default; enable them in a .jfc file, e.g.
+ * jfr configure --input default +org.example.ClosureGeneration#enabled=true +org.example.Decision#enabled=true --output tropical.jfc
+ * and -XX:StartFlightRecording:filename=run.jfr,settings=tropical.jfc (the events are registered when the classes are loaded,
+ * so their settings cannot be given directly in -XX:StartFlightRecording). While an event is disabled, begin...() returns null and end...() does nothing,
+ * so the cost is one allocation that the JIT removes per call, and the calls are only made between generations,
+ * at the deadline checks of the closures (product batches) and once per decision.
+ * */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Event types                                                        */
+    /* ------------------------------------------------------------------ */
+
+    @Name("org.example.ClosureGeneration")
+    @Label("Closure Generation")
+    @Description("Expansion of one generation (frontier) of a closure; a generation interrupted by a timeout ends with run()")
+    @Category({"Tropical Matrices", "Closure"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class GenerationEvent extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Generation")
+        int generation;
+
+        @Label("Frontier Size")
+        @Description("Number of products to be expanded at the start of the generation")
+        long frontierSize;
+
+        @Label("Size")
+        @Description("Number of distinct products at the end of the generation")
+        long size;
+
+        @Label("Max Value")
+        int maxValue;
+    }
+
+    @Name("org.example.ProductBatch")
+    @Label("Product Batch")
+    @Description("Products computed between two deadline checks of FroidurePin or SemigroupClosure")
+    @Category({"Tropical Matrices", "Closure"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ProductBatchEvent extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Expanded")
+        long expanded;
+
+        @Label("Products")
+        long products;
+
+        @Label("Duplicates")
+        long duplicates;
+    }
+
+    @Name("org.example.Decision")
+    @Label("Decision")
+    @Category({"Tropical Matrices", "Decision"})
+    @Enabled(false)
+    static final class DecisionEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Dimension")
+        int dimension;
+
+        @Label("Matrices")
+        int matrices;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Label("Max Value")
+        @Description("Largest finite entry of all products found, -1 if the algorithm does not compute products")
+        int maxValue;
+
+        @Label("Size")
+        @Description("Number of distinct products found, -1 if the algorithm does not compute products")
+        int size;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Generations                                                        */
+    /* ------------------------------------------------------------------ */
+
+    /** Begins the event of a generation, returns null if the event is disabled */
+    static GenerationEvent beginGeneration(String engine, int generation, long frontierSize) {
+        GenerationEvent event = new GenerationEvent();
+        if (!event.isEnabled()) return null;
+        event.engine = engine;
+        event.generation = generation;
+        event.frontierSize = frontierSize;
+        event.begin();
+        return event;
+    }
+
+    /** Commits the event returned by beginGeneration() (nothing if it is null) */
+    static void endGeneration(GenerationEvent event, long size, int maxValue) {
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.size = size;
+        event.maxValue = maxValue;
+        event.commit();
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Product batches                                                    */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Begins the event of a batch at the given position of the worklist and the current counters of the closure,
+     * returns null if the event is disabled
+     * */
+    static ProductBatchEvent beginBatch(String engine, long position, long products, long duplicates) {
+        ProductBatchEvent event = new ProductBatchEvent();
+        if (!event.isEnabled()) return null;
+        event.engine = engine;
+        event.expanded = position;
+        event.products = products;
+        event.duplicates = duplicates;
+        event.begin();
+        return event;
+    }
+
+    /** Commits the event returned by beginBatch() (nothing if it is null) with the differences to the current counters */
+    static void endBatch(ProductBatchEvent event, long position, long products, long duplicates) {
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.expanded = position - event.expanded;
+        event.products = products - event.products;
+        event.duplicates = duplicates - event.duplicates;
+        event.commit();
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Decisions                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /** Begins the event of a decision, returns null if the event is disabled */
+    static DecisionEvent beginDecision(String algorithm, TropicalMatrix[] matrices) {
+        return beginDecision(algorithm, matrices[0].size(), matrices.length);
+    }
+
+    /** Same as beginDecision(String, TropicalMatrix[]) for count matrices of the given dimension */
+    static DecisionEvent beginDecision(String algorithm, int dimension, int count) {
+        DecisionEvent event = new DecisionEvent();
+        if (!event.isEnabled()) return null;
+        event.algorithm = algorithm;
+        event.dimension = dimension;
+        event.matrices = count;
+        event.begin();
+        return event;
+    }
+
+    /** Commits the event returned by beginDecision() (nothing if it is null) with the result of a closure */
+    static void endDecision(DecisionEvent event, SemigroupClosure.Result result) {
+        endDecision(event, result.status().name(), result.maxValue(), result.size());
+    }
+
+    /** Commits the event returned by beginDecision() (nothing if it is null) with the outcome of an algorithm without products */
+    static void endDecision(DecisionEvent event, boolean bounded) {
+        endDecision(event, bounded ? "BOUNDED" : "UNBOUNDED", -1, -1);
+    }
+
+    private static void endDecision(DecisionEvent event, String outcome, int maxValue, int size) {
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.outcome = outcome;
+        event.maxValue = maxValue;
+        event.size = size;
+        event.commit();
+    }
+}
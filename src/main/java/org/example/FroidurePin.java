@@ -0,0 +1,377 @@
+package org.example;
+
+import org.example.Matrix.MatrixSet;
+import org.example.Matrix.PackedMatrixSet;
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Enumerates the monoid generated by a set of tropical matrices with the Froidure–Pin algorithm.
+ * <p>
+ * Every distinct product gets an id (0 is the identity, then in shortlex order of the shortest words producing them)
+ * and the right Cayley graph right(id, letter) = id of (product * generator) is built along the way.
+ * Each element u = first(u) * suffix(u) remembers its first letter and suffix, so if suffix(u) * g is already known
+ * to be equal to a product with a shorter (or smaller) word, u * g can be looked up in the Cayley graphs
+ * instead of being computed with a matrix multiplication. Only products of "reduced" words are actually multiplied.
+ * <p>
+ * Since every element also stores prefix(u) and its last letter, the shortest word of every product is available via word().
+ * <p>
+ * Every new product is also checked for powers that grow without bound (see StabilizationMonoid.hasUnboundedPowers()),
+ * so unbounded instances usually stop with a certain answer (UNBOUNDED) and a witness word long before any timeout.
+ * <p>
+ * For n <= PackedMatrixSet.MAX_DIMENSION (and generators that are plain TropicalMatrix objects), the products are kept
+ * in a PackedMatrixSet (one long per product) as long as all their entries fit into the packed width; the first product
+ * that does not fit moves all products to a MatrixSet (with the same ids), and the enumeration continues there.
+ * <p>
+ * A generation is the set of products whose shortest words have the same length (see setListener()).
+ * */
+public class FroidurePin {
+    private static final int IDENTITY = 0;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;   // number of processed elements between two clock reads
+    private static final String ENGINE = "FroidurePin";       // engine name in the flight recorder events
+
+    private final TropicalMatrix[] generators;
+    private final int k;                // number of generators (letters)
+    private final int n;
+    private MatrixSet elements;         // all distinct products, id -> matrix (null while packed is used)
+    private PackedMatrixSet packed;     // all distinct products as long values, while they fit (otherwise null)
+    private long[][] packedGenerators;  // row tables of the generators (see PackedMatrixSet.rowTable())
+    private final int[] letterToId;     // id of each generator (two letters may map to the same id)
+
+    // per element
+    private int[] first;                // first letter of the shortest word
+    private int[] last;                 // last letter of the shortest word
+    private int[] prefix;               // id of the word without its last letter
+    private int[] suffix;               // id of the word without its first letter
+    private int[] length;               // length of the shortest word
+
+    // per element and letter, index id * k + letter
+    private int[] right;                // id of element * generator
+    private int[] left;                 // id of generator * element
+    private boolean[] reduced;          // whether word(element) + letter is the shortest word of right(element, letter)
+
+    private int pos = 1;                // next element whose right edges are computed
+    private int leftDone = 1;           // left edges are known for all elements < leftDone
+    private int maxValue;
+    private long multiplications;
+    private long duplicates;            // multiplications that gave a known product
+    private ClosureListener listener;
+    private FlightRecorderEvents.GenerationEvent generationEvent;     // null unless the event is enabled (see FlightRecorderEvents)
+    private FlightRecorderEvents.ProductBatchEvent batchEvent;
+    private final long startNanos = System.nanoTime();
+    private boolean detectUnboundedness = true;
+    private int unboundednessWitness = -1;  // id of a product with unbounded powers
+
+    public FroidurePin(TropicalMatrix[] generators) {
+        if (generators == null || generators.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        this.generators = generators;
+        this.k = generators.length;
+        this.n = generators[0].size();
+        this.elements = new MatrixSet(n);
+        this.letterToId = new int[k];
+
+        int capacity = 16;
+        first = new int[capacity];
+        last = new int[capacity];
+        prefix = new int[capacity];
+        suffix = new int[capacity];
+        length = new int[capacity];
+        right = new int[capacity * k];
+        left = new int[capacity * k];
+        reduced = new boolean[capacity * k];
+
+        elements.add(new TropicalMatrix(n));
+        first[IDENTITY] = last[IDENTITY] = prefix[IDENTITY] = suffix[IDENTITY] = -1;
+        for (int j = 0; j < k; j++) {
+            boolean isNew = elements.add(generators[j]);
+            int id = elements.indexOf(generators[j]);
+            if (isNew) {
+                ensureCapacity(id + 1);
+                first[id] = last[id] = j;
+                prefix[id] = suffix[id] = IDENTITY;
+                length[id] = 1;
+                maxValue = Math.max(maxValue, elements.maxValue(id));
+            }
+            letterToId[j] = id;
+            right[IDENTITY * k + j] = left[IDENTITY * k + j] = id;
+            reduced[IDENTITY * k + j] = isNew;
+        }
+
+        int[] entries = new int[n * n], abstraction = new int[n * n], scratch = new int[n * n];
+        for (int id = 1; id < elements.size() && unboundednessWitness < 0; id++) {
+            elements.copy(id, entries, 0);
+            if (StabilizationMonoid.hasUnboundedPowers(entries, n, abstraction, scratch)) unboundednessWitness = id;
+        }
+
+        if (PackedMatrixSet.supports(n) && Arrays.stream(generators).allMatch(generator -> generator.getClass() == TropicalMatrix.class)) {
+            PackedMatrixSet set = new PackedMatrixSet(n);
+            boolean fits = true;
+            for (int id = 0; id < elements.size() && fits; id++) {
+                elements.copy(id, entries, 0);
+                fits = set.fits(entries, 0);
+                if (fits) set.addIfAbsent(set.pack(entries, 0));
+            }
+            if (fits) {
+                packed = set;
+                elements = null;
+                packedGenerators = new long[k][];
+                for (int j = 0; j < k; j++) packedGenerators[j] = set.rowTable(set.get(letterToId[j]));
+            }
+        }
+    }
+
+    /**
+     * Enumerates elements until the monoid is complete, the deadline (System.currentTimeMillis()) is reached,
+     * a product has an entry greater than bound (see SemigroupClosure.NO_BOUND and SemigroupClosure.NO_DEADLINE),
+     * or a product with unbounded powers is found.
+     * After TIMED_OUT (but not after BOUND_EXCEEDED or UNBOUNDED), run() may be called again to continue the enumeration.
+     * */
+    public SemigroupClosure.Result run(long deadlineMillis, int bound) {
+        generationEvent = FlightRecorderEvents.beginGeneration(ENGINE, generation(), size() - pos);
+        SemigroupClosure.Result result = enumerate(deadlineMillis, bound);
+        FlightRecorderEvents.endBatch(batchEvent, pos, multiplications, duplicates);
+        FlightRecorderEvents.endGeneration(generationEvent, size(), maxValue);
+        batchEvent = null;
+        generationEvent = null;
+        if (listener != null) listener.onFinish(statistics(), result);
+        return result;
+    }
+
+    private SemigroupClosure.Result enumerate(long deadlineMillis, int bound) {
+        if (maxValue > bound) return result(SemigroupClosure.Status.BOUND_EXCEEDED);
+
+        int width = n * n;
+        int[] product = new int[width];
+        int[] abstraction = new int[width], scratch = new int[width];
+        if (detectUnboundedness && unboundednessWitness >= 0) return result(SemigroupClosure.Status.UNBOUNDED);
+
+        for (int processed = 0; pos < size(); processed++, pos++) {
+            if (processed % DEADLINE_CHECK_INTERVAL == 0) {
+                FlightRecorderEvents.endBatch(batchEvent, pos, multiplications, duplicates);
+                batchEvent = FlightRecorderEvents.beginBatch(ENGINE, pos, multiplications, duplicates);
+                if (System.currentTimeMillis() >= deadlineMillis) return result(SemigroupClosure.Status.TIMED_OUT);
+            }
+
+            int u = pos;
+            if (length[u] > length[u - 1]) nextGeneration();
+            // left edges of all shorter elements are needed below
+            while (leftDone < pos && length[leftDone] < length[u]) computeLeft(leftDone++);
+
+            int b = first[u];
+            int s = suffix[u];
+            for (int j = 0; j < k; j++) {
+                if (!reduced[s * k + j]) {
+                    // u * j = b * (s * j), and s * j has a word that is not longer than |u|
+                    int r = right[s * k + j];
+                    if (r == IDENTITY) {
+                        right[u * k + j] = letterToId[b];
+                    } else if (length[r] > 1) {
+                        right[u * k + j] = right[left[prefix[r] * k + b] * k + last[r]];
+                    } else {
+                        right[u * k + j] = right[letterToId[b] * k + last[r]];
+                    }
+                    continue;
+                }
+
+                int id = multiply(u, j, product);
+                if (id < 0) {
+                    duplicates++;
+                    right[u * k + j] = -id - 1;
+                    continue;
+                }
+                ensureCapacity(id + 1);
+                first[id] = b;
+                last[id] = j;
+                prefix[id] = u;
+                suffix[id] = right[s * k + j];
+                length[id] = length[u] + 1;
+                right[u * k + j] = id;
+                reduced[u * k + j] = true;
+
+                maxValue = Math.max(maxValue, maxFiniteEntry(product));
+                if (maxValue > bound) return result(SemigroupClosure.Status.BOUND_EXCEEDED);
+                if (detectUnboundedness && StabilizationMonoid.hasUnboundedPowers(product, n, abstraction, scratch)) {
+                    unboundednessWitness = id;
+                    return result(SemigroupClosure.Status.UNBOUNDED);
+                }
+            }
+        }
+        return result(SemigroupClosure.Status.SATURATED);
+    }
+
+    /**
+     * Computes (element u) * (generator j) and inserts it, returns its id if it is new (and then its entries are in product)
+     * or (-id - 1) with the id of the existing product
+     * */
+    private int multiply(int u, int j, int[] product) {
+        multiplications++;
+        if (packed != null) {
+            long p = packed.multiply(packed.get(u), packedGenerators[j]);
+            if (!packed.hasOverflow(p)) {
+                int id = packed.addIfAbsent(p);
+                if (id >= 0) packed.unpack(p, product, 0);
+                return id;
+            }
+            unpack();
+        }
+        elements.multiply(u, generators[j], product, 0);
+        return elements.addIfAbsent(product, 0);
+    }
+
+    // moves all products from packed to elements (same ids)
+    private void unpack() {
+        elements = packed.toMatrixSet();
+        packed = null;
+        packedGenerators = null;
+    }
+
+    private static int maxFiniteEntry(int[] entries) {
+        int max = 0;
+        for (int entry : entries) {
+            if (entry != TropicalMatrix.INF && entry > max) max = entry;
+        }
+        return max;
+    }
+
+    // left(x, a) = a * x = (a * prefix(x)) * last(x)
+    private void computeLeft(int x) {
+        for (int a = 0; a < k; a++) {
+            int ax = length[x] == 1 ? right[letterToId[a] * k + last[x]] : right[left[prefix[x] * k + a] * k + last[x]];
+            left[x * k + a] = ax;
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * All products found so far, in shortlex order of their shortest words (id 0 is the identity).
+     * While the products are packed, this is a copy (later products are not added to it), so the packed products are kept for run().
+     * */
+    public MatrixSet products() {
+        return packed != null ? packed.toMatrixSet() : elements;
+    }
+
+    public int size() {
+        return packed != null ? packed.size() : elements.size();
+    }
+
+    /** Whether all products have been found (i.e. the last run() returned SATURATED) */
+    public boolean isComplete() {
+        return pos == size();
+    }
+
+    public TropicalMatrix[] generators() {
+        return generators.clone();
+    }
+
+    /** Id of the product of the element with the given id and the generator with the given letter, only valid for processed elements */
+    public int right(int id, int letter) {
+        if (id >= pos) throw new IllegalStateException("Element " + id + " has not been processed yet.");
+        return right[id * k + letter];
+    }
+
+    /** Length of the shortest word producing the element with the given id */
+    public int length(int id) {
+        return length[id];
+    }
+
+    /** Shortest (and among those lexicographically smallest) word producing the element with the given id, as generator indices */
+    public int[] word(int id) {
+        if (id < 0 || id >= size()) throw new IndexOutOfBoundsException("Id " + id + " out of bounds for size " + size() + ".");
+        int[] word = new int[length[id]];
+        for (int i = word.length - 1; i >= 0; i--) {
+            word[i] = last[id];
+            id = prefix[id];
+        }
+        return word;
+    }
+
+    /**
+     * Like word(), but for the identity (whose shortest word is empty) this returns the shortest non-empty word producing it,
+     * or null if there is none. Only valid after the enumeration saturated.
+     * */
+    public int[] nonEmptyWord(int id) {
+        if (id != IDENTITY) return word(id);
+        // the first matching (element, letter) pair in id order has the shortlex smallest word
+        for (int x = 0; x < pos; x++) {
+            for (int j = 0; j < k; j++) {
+                if (right[x * k + j] != IDENTITY) continue;
+                int[] word = Arrays.copyOf(word(x), length[x] + 1);
+                word[length[x]] = j;
+                return word;
+            }
+        }
+        return null;
+    }
+
+    public int maxValue() {
+        return maxValue;
+    }
+
+    /** Word of a product whose powers grow without bound (the instance is unbounded), or null if none was found */
+    public int[] unboundednessWitness() {
+        return unboundednessWitness < 0 ? null : word(unboundednessWitness);
+    }
+
+    /** Enables or disables the check of every new product for unbounded powers (enabled by default) */
+    public void setDetectUnboundedness(boolean detectUnboundedness) {
+        this.detectUnboundedness = detectUnboundedness;
+    }
+
+    /**
+     * Sets the listener that is notified after every generation, i.e. before the first product of a new word length is processed
+     * (null to disable); the frontier size is the number of products of that word length
+     * */
+    public void setListener(ClosureListener listener) {
+        this.listener = listener;
+    }
+
+    /** Number of matrix multiplications performed so far (all other products were looked up in the Cayley graphs) */
+    public long multiplications() {
+        return multiplications;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    private SemigroupClosure.Result result(SemigroupClosure.Status status) {
+        return new SemigroupClosure.Result(status, maxValue, size(), generation());
+    }
+
+    // called before the first product of a new word length is processed
+    private void nextGeneration() {
+        if (listener != null) listener.onGeneration(statistics());
+        FlightRecorderEvents.endGeneration(generationEvent, size(), maxValue);
+        generationEvent = FlightRecorderEvents.beginGeneration(ENGINE, length[pos], size() - pos);
+    }
+
+    private int generation() {
+        int size = size();
+        return pos < size ? length[pos] : length[size - 1] + 1;
+    }
+
+    private ClosureStatistics statistics() {
+        int size = size();
+        int generation = generation();
+        long bytes = packed != null ? packed.retainedBytes() : elements.retainedBytes();
+        bytes += 4L * 5 * first.length + 4L * 2 * right.length + reduced.length;
+        return new ClosureStatistics(generation, size - pos, size, multiplications, duplicates, maxValue, System.nanoTime() - startNanos, bytes);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= first.length) return;
+        int newCapacity = Math.max(capacity, first.length * 2);
+        first = Arrays.copyOf(first, newCapacity);
+        last = Arrays.copyOf(last, newCapacity);
+        prefix = Arrays.copyOf(prefix, newCapacity);
+        suffix = Arrays.copyOf(suffix, newCapacity);
+        length = Arrays.copyOf(length, newCapacity);
+        right = Arrays.copyOf(right, newCapacity * k);
+        left = Arrays.copyOf(left, newCapacity * k);
+        reduced = Arrays.copyOf(reduced, newCapacity * k);
+    }
+}
@@ -0,0 +1,216 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Canonical representatives of instances under symmetry:
+ * Applying the same permutation to the rows and columns of every matrix, or reordering the matrices,
+ * changes neither the boundedness nor the bound of an instance.
+ * <p>
+ * The canonical form is the lexicographically smallest encoding (matrices sorted, entries row-major) among all
+ * vertex orders that are reachable by individualization-refinement: vertices are colored by partition refinement
+ * on the weighted multigraph (the color of a vertex is refined by the weights and colors of its in- and out-edges in all matrices),
+ * and whenever the coloring is not discrete, every vertex of the first non-singleton color class is individualized in turn.
+ * Since refinement never depends on vertex numbers, isomorphic instances get the same canonical form.
+ * */
+public final class InstanceCanonicalizer {
+
+    private InstanceCanonicalizer() {
+    }
+
+    /** Canonical representative of the isomorphism class of the instance (new matrices, the instance is not modified) */
+    public static TropicalMatrix[] canonicalForm(TropicalMatrix[] matrices) {
+        int n = checkInstance(matrices);
+        return fromEncoding(canonicalEncoding(matrices), n);
+    }
+
+    /**
+     * Whether the instance is the canonical representative of its class, up to the order of its matrices
+     * (so exactly one instance of every class in MatrixEnumerator.instances() is canonical, see SweepWorker.sweep())
+     * */
+    public static boolean isCanonical(TropicalMatrix[] matrices) {
+        int n = checkInstance(matrices);
+        int[] identity = new int[n];
+        for (int i = 0; i < n; i++) identity[i] = i;
+        return Arrays.equals(encode(matrices, identity, true), canonicalEncoding(matrices));
+    }
+
+    /**
+     * Encoding of the canonical form: all matrices (sorted) with their entries in row-major order.
+     * Two instances with the same dimension and number of matrices are isomorphic iff their encodings are equal.
+     * */
+    public static int[] canonicalEncoding(TropicalMatrix[] matrices) {
+        int n = checkInstance(matrices);
+        Search search = new Search(matrices, n);
+        search.run(new int[n]);
+        return search.best;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Individualization-refinement                                       */
+    /* ------------------------------------------------------------------ */
+
+    private static final class Search {
+        private final TropicalMatrix[] matrices;
+        private final int n;
+        private int[] best;
+
+        Search(TropicalMatrix[] matrices, int n) {
+            this.matrices = matrices;
+            this.n = n;
+        }
+
+        void run(int[] colors) {
+            refine(colors);
+
+            // first non-singleton color class (colors are ranks 0 ... c-1)
+            int[] classSize = new int[n];
+            for (int color : colors) classSize[color]++;
+            int target = -1;
+            for (int color = 0; color < n; color++) {
+                if (classSize[color] > 1) {
+                    target = color;
+                    break;
+                }
+            }
+
+            if (target == -1) {
+                int[] order = new int[n];    // order[position] = vertex
+                for (int v = 0; v < n; v++) order[colors[v]] = v;
+                int[] encoding = encode(matrices, order, true);
+                if (best == null || Arrays.compare(encoding, best) < 0) best = encoding;
+                return;
+            }
+
+            for (int v = 0; v < n; v++) {
+                if (colors[v] != target) continue;
+                // individualize v: it is placed in front of the other vertices of its class
+                int[] next = new int[n];
+                for (int u = 0; u < n; u++) next[u] = 2 * colors[u] + (u == v ? 0 : 1);
+                run(rank(next));
+            }
+        }
+
+        // refines colors in place until the number of colors is stable
+        private void refine(int[] colors) {
+            int count = countColors(colors);
+            while (true) {
+                int[][] signatures = new int[n][];
+                for (int v = 0; v < n; v++) signatures[v] = signature(v, colors);
+                Integer[] vertices = new Integer[n];
+                for (int v = 0; v < n; v++) vertices[v] = v;
+                Arrays.sort(vertices, (a, b) -> Arrays.compare(signatures[a], signatures[b]));
+
+                int[] refined = new int[n];
+                int color = 0;
+                for (int i = 0; i < n; i++) {
+                    if (i > 0 && Arrays.compare(signatures[vertices[i - 1]], signatures[vertices[i]]) != 0) color++;
+                    refined[vertices[i]] = color;
+                }
+                System.arraycopy(refined, 0, colors, 0, n);
+                if (color + 1 == count) return;
+                count = color + 1;
+            }
+        }
+
+        // own color, followed by (sorted over all matrices) the sorted (weight, color) pairs of all out-edges and in-edges
+        private int[] signature(int v, int[] colors) {
+            int[][] perMatrix = new int[matrices.length][];
+            long[] pairs = new long[n];
+            for (int m = 0; m < matrices.length; m++) {
+                int[] edges = new int[4 * n];
+                for (int u = 0; u < n; u++) pairs[u] = pair(matrices[m].get(v, u), colors[u]);
+                Arrays.sort(pairs);
+                for (int u = 0; u < n; u++) unpair(pairs[u], edges, 2 * u);
+                for (int u = 0; u < n; u++) pairs[u] = pair(matrices[m].get(u, v), colors[u]);
+                Arrays.sort(pairs);
+                for (int u = 0; u < n; u++) unpair(pairs[u], edges, 2 * n + 2 * u);
+                perMatrix[m] = edges;
+            }
+            Arrays.sort(perMatrix, Arrays::compare);
+
+            int[] signature = new int[1 + 4 * n * matrices.length];
+            signature[0] = colors[v];
+            for (int m = 0; m < matrices.length; m++) {
+                System.arraycopy(perMatrix[m], 0, signature, 1 + 4 * n * m, 4 * n);
+            }
+            return signature;
+        }
+
+        private static long pair(int weight, int color) {
+            return ((long) weight << 32) | color;   // weights and colors are non-negative
+        }
+
+        private static void unpair(long pair, int[] dst, int offset) {
+            dst[offset] = (int) (pair >>> 32);
+            dst[offset + 1] = (int) pair;
+        }
+
+        private int countColors(int[] colors) {
+            int max = -1;
+            for (int color : colors) max = Math.max(max, color);
+            return max + 1;
+        }
+
+        private int[] rank(int[] values) {
+            int[] sorted = Arrays.stream(values).distinct().sorted().toArray();
+            int[] ranks = new int[n];
+            for (int v = 0; v < n; v++) ranks[v] = Arrays.binarySearch(sorted, values[v]);
+            return ranks;
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    // entries of all matrices with rows and columns in the given vertex order, optionally with the matrices sorted
+    private static int[] encode(TropicalMatrix[] matrices, int[] order, boolean sortMatrices) {
+        int n = order.length;
+        List<int[]> encoded = new ArrayList<>(matrices.length);
+        for (TropicalMatrix matrix : matrices) {
+            int[] entries = new int[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    entries[i * n + j] = matrix.get(order[i], order[j]);
+                }
+            }
+            encoded.add(entries);
+        }
+        if (sortMatrices) encoded.sort(Arrays::compare);
+
+        int[] encoding = new int[matrices.length * n * n];
+        for (int m = 0; m < matrices.length; m++) {
+            System.arraycopy(encoded.get(m), 0, encoding, m * n * n, n * n);
+        }
+        return encoding;
+    }
+
+    /** Instance of n x n matrices with the given encoding (see canonicalEncoding()) */
+    public static TropicalMatrix[] fromEncoding(int[] encoding, int n) {
+        if (encoding.length == 0 || encoding.length % (n * n) != 0) throw new IllegalArgumentException("Invalid encoding length.");
+        int count = encoding.length / (n * n);
+        TropicalMatrix[] matrices = new TropicalMatrix[count];
+        for (int m = 0; m < count; m++) {
+            int[][] data = new int[n][n];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(encoding, m * n * n + i * n, data[i], 0, n);
+            }
+            matrices[m] = new TropicalMatrix(data);
+        }
+        return matrices;
+    }
+
+    private static int checkInstance(TropicalMatrix[] matrices) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        int n = matrices[0].size();
+        for (TropicalMatrix matrix : matrices) {
+            if (matrix.size() != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+        }
+        return n;
+    }
+}
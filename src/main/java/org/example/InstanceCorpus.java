@@ -0,0 +1,308 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file format for corpora of instances (arrays of k n x n tropical matrices), see Writer and Reader.
+ * <p>
+ * Layout (little-endian): a 16 byte header (magic "TMCO", version (2 bytes), element width in bytes (1, 2 or 4),
+ * reserved byte, n (4 bytes), k (4 bytes)), followed by fixed-size records of k * n * n unsigned entries of the element width
+ * (matrices in order, entries row-major). Infinity is encoded as all ones (0xFF, 0xFFFF or 0xFFFFFFFF), so the largest
+ * finite entry is 254, 65534 or INF - 1. The number of instances is given by the file size; an incomplete last record
+ * (e.g. from a writer that was killed) is ignored by readers and overwritten by the next writer.
+ * */
+public final class InstanceCorpus {
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+
+    private static final int MAGIC = 0x4F434D54;  // "TMCO" (little-endian)
+
+    private InstanceCorpus() {
+    }
+
+    /** Smallest element width (1, 2 or 4 bytes) that can store all finite entries up to maxValue */
+    public static int widthFor(int maxValue) {
+        if (maxValue < 0xFF) return 1;
+        if (maxValue < 0xFFFF) return 2;
+        return 4;
+    }
+
+    private static int infinityCode(int width) {
+        return width == 4 ? -1 : (1 << (8 * width)) - 1;
+    }
+
+    private static ByteBuffer header(int width, int n, int k) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort((short) VERSION).put((byte) width).put((byte) 0).putInt(n).putInt(k);
+        return header.flip();
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Writer                                                             */
+    /* ------------------------------------------------------------------ */
+
+    /** Appends instances to a corpus file (created if it does not exist, otherwise its header must match) */
+    public static final class Writer implements Closeable {
+        private static final int BUFFER_BYTES = 1 << 16;
+
+        private final FileChannel channel;
+        private final int n, k, width;
+        private final int recordBytes;
+        private final int infinity;
+        private final ByteBuffer buffer;
+        private long count;
+
+        public Writer(Path file, int n, int k, int width) throws IOException {
+            if (n <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
+            if (k < 1) throw new IllegalArgumentException("k must be at least 1.");
+            if (width != 1 && width != 2 && width != 4) throw new IllegalArgumentException("Width must be 1, 2 or 4.");
+            this.n = n;
+            this.k = k;
+            this.width = width;
+            this.recordBytes = Math.multiplyExact(k * n * n, width);
+            this.infinity = infinityCode(width);
+            this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_BYTES, recordBytes)).order(ByteOrder.LITTLE_ENDIAN);
+
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                if (channel.size() == 0) {
+                    ByteBuffer header = header(width, n, k);
+                    while (header.hasRemaining()) channel.write(header);
+                } else {
+                    Header existing = Header.read(channel, file);
+                    if (existing.n != n || existing.k != k || existing.width != width) {
+                        throw new IllegalArgumentException("Corpus " + file + " has n = " + existing.n + ", k = " + existing.k + ", width = " + existing.width + ".");
+                    }
+                }
+                count = (channel.size() - HEADER_BYTES) / recordBytes;
+                channel.truncate(HEADER_BYTES + count * recordBytes);     // drop an incomplete last record
+                channel.position(HEADER_BYTES + count * recordBytes);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** Appends an instance of k n x n matrices */
+        public void write(TropicalMatrix[] instance) throws IOException {
+            if (instance.length != k) throw new IllegalArgumentException("Instance must have " + k + " matrices.");
+            ensureSpace();
+            int start = buffer.position();
+            try {
+                for (TropicalMatrix matrix : instance) {
+                    if (matrix.size() != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+                    for (int i = 0; i < n; i++) {
+                        for (int j = 0; j < n; j++) put(matrix.get(i, j));
+                    }
+                }
+            } catch (RuntimeException e) {
+                buffer.position(start);     // never write a partial record
+                throw e;
+            }
+            count++;
+        }
+
+        /** Appends the instance whose k * n * n entries (matrices in order, entries row-major) are stored at entries[offset...] */
+        public void write(int[] entries, int offset) throws IOException {
+            ensureSpace();
+            int start = buffer.position();
+            try {
+                for (int i = offset; i < offset + k * n * n; i++) put(entries[i]);
+            } catch (RuntimeException e) {
+                buffer.position(start);
+                throw e;
+            }
+            count++;
+        }
+
+        private void ensureSpace() throws IOException {
+            if (buffer.remaining() < recordBytes) flush();
+        }
+
+        private void put(int value) {
+            int code = value == TropicalMatrix.INF ? infinity : value;
+            if (value != TropicalMatrix.INF && (value < 0 || (width < 4 && value >= infinity))) {
+                throw new IllegalArgumentException("Entry " + value + " does not fit into " + width + " bytes.");
+            }
+            switch (width) {
+                case 1 -> buffer.put((byte) code);
+                case 2 -> buffer.putShort((short) code);
+                default -> buffer.putInt(code);
+            }
+        }
+
+        /** Writes all buffered instances to the file */
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        /** Number of instances in the file (including the ones written by this writer) */
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Reader                                                             */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Memory-mapped reader of a corpus file. Instances are decoded into caller-provided buffers,
+     * either by index (read()) or with a cursor (next()), so iterating a corpus does not allocate anything.
+     * The instances that are in the file when the reader is opened are visible. Not thread-safe (use one reader per thread).
+     * */
+    public static final class Reader implements Closeable {
+        private static final long MAX_MAPPING_BYTES = Integer.MAX_VALUE;
+
+        private final int n, k, width;
+        private final int entries;          // entries per instance (k * n * n)
+        private final int recordBytes;
+        private final int infinity;
+        private final long count;
+        private final long recordsPerMapping;
+        private final MappedByteBuffer[] mappings;
+        private long cursor;
+
+        public Reader(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Header header = Header.read(channel, file);
+                this.n = header.n;
+                this.k = header.k;
+                this.width = header.width;
+                this.entries = k * n * n;
+                this.recordBytes = Math.multiplyExact(entries, width);
+                this.infinity = infinityCode(width);
+                this.count = (channel.size() - HEADER_BYTES) / recordBytes;
+                this.recordsPerMapping = MAX_MAPPING_BYTES / recordBytes;
+                if (recordsPerMapping == 0) throw new IOException("Records of " + file + " are too large.");
+
+                int mappingCount = (int) ((count + recordsPerMapping - 1) / recordsPerMapping);
+                this.mappings = new MappedByteBuffer[mappingCount];
+                for (int m = 0; m < mappingCount; m++) {
+                    long records = Math.min(recordsPerMapping, count - m * recordsPerMapping);
+                    mappings[m] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + m * recordsPerMapping * recordBytes, records * recordBytes);
+                    mappings[m].order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+        }
+
+        public int dimension() { return n; }
+
+        /** Number of matrices per instance */
+        public int matricesPerInstance() { return k; }
+
+        public int width() { return width; }
+
+        /** Number of instances */
+        public long count() { return count; }
+
+        /** Writes the k * n * n entries of the instance with the given index (matrices in order, entries row-major) to dst[offset...] */
+        public void read(long index, int[] dst, int offset) {
+            if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for count " + count + ".");
+            MappedByteBuffer mapping = mappings[(int) (index / recordsPerMapping)];
+            int position = (int) (index % recordsPerMapping) * recordBytes;
+            switch (width) {
+                case 1 -> {
+                    for (int i = 0; i < entries; i++) dst[offset + i] = decode(mapping.get(position + i) & 0xFF);
+                }
+                case 2 -> {
+                    for (int i = 0; i < entries; i++) dst[offset + i] = decode(mapping.getShort(position + 2 * i) & 0xFFFF);
+                }
+                default -> {
+                    for (int i = 0; i < entries; i++) dst[offset + i] = decode(mapping.getInt(position + 4 * i));
+                }
+            }
+        }
+
+        private int decode(int code) {
+            return code == infinity ? TropicalMatrix.INF : code;
+        }
+
+        /** Reads the instance at the cursor into dst[offset...] and advances the cursor, returns false if there are no more instances */
+        public boolean next(int[] dst, int offset) {
+            if (cursor >= count) return false;
+            read(cursor++, dst, offset);
+            return true;
+        }
+
+        /** Moves the cursor to the instance with the given index */
+        public void seek(long index) {
+            if (index < 0 || index > count) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for count " + count + ".");
+            cursor = index;
+        }
+
+        /** The instance with the given index as new matrices */
+        public TropicalMatrix[] instance(long index) {
+            int[] buffer = new int[entries];
+            read(index, buffer, 0);
+            return InstanceCanonicalizer.fromEncoding(buffer, n);
+        }
+
+        @Override
+        public void close() {
+            cursor = count;
+            // mapped buffers are unmapped by the garbage collector
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    private record Header(int width, int n, int k) {
+        static Header read(FileChannel channel, Path file) throws IOException {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Not an instance corpus: " + file);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("Not an instance corpus: " + file);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("Not an instance corpus: " + file);
+            int version = header.getShort();
+            if (version != VERSION) throw new IOException("Unsupported corpus version " + version + ".");
+            int width = header.get();
+            header.get();
+            int n = header.getInt(), k = header.getInt();
+            if ((width != 1 && width != 2 && width != 4) || n <= 0 || k < 1) throw new IOException("Corrupt corpus header: " + file);
+            return new Header(width, n, k);
+        }
+    }
+
+    /** Number of instances in the corpus file */
+    public static long count(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = Header.read(channel, file);
+            return (channel.size() - HEADER_BYTES) / ((long) header.k * header.n * header.n * header.width);
+        }
+    }
+
+    /** Whether the file starts with a corpus header (and can be opened by Reader) */
+    public static boolean isCorpus(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header.read(channel, file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -1,14 +1,8 @@
 package org.example;
 
-import org.example.Matrix.TropicalMatrix;
-
 import java.time.Duration;
-import java.util.Arrays;
-import java.util.List;
 
-import static org.example.DecisionAlgorithms.semiDecideMaxValue;
 import static org.example.Dijkstra.findMinPathForMaxValue;
-import static org.example.TropicalMatrixGenerator.getRandomMatrices;
 
 public class Main {
 
@@ -18,13 +12,9 @@ public class Main {
         double timeout = 0.1;   // timeout for semiDecideMaxValue(); should be increased if n or numberOfMatrices is increased (use minUnbounded as an indicator: increase timeout if minUnbounded gets close to maxBounded)
         long intervalNanoSeconds = (long) 2E9;  // (approximate) time between each update in the console in nanoseconds
         long totalNanoSeconds = (long) 180E9;   // (approximate) runtime of this method in nanoseconds
-
-        int maxBounded = 0;     // maximum value found among all bounded instances
-        int minUnbounded = Integer.MAX_VALUE;       // "minimum max value" found among all instances that timed out (presumed unbounded)
-        TropicalMatrix[] maxInstance = new TropicalMatrix[numberOfMatrices];
-
-        long startTime = System.nanoTime();
-        long lastTime = System.nanoTime();
+        int maxCachedClasses = 1 << 20;     // isomorphism classes whose results are remembered (each class is only decided once)
+        int threads = Runtime.getRuntime().availableProcessors();   // number of worker threads
+        long seed = System.nanoTime();      // master seed (the search can be repeated with the same seed; every instance also has its own seed)
 
         System.out.println("\n\nSearching for maximum bound in randomly generated instances with:");
         System.out.println("dimension: " + n);
@@ -34,41 +24,33 @@ public class Main {
         int expectedBound = 2*(n-1);
         System.out.println("Old expected bound (2*(dimension-1)*maxValue): " + expectedBound + " (known to be wrong for numberOfMatrices > 1)\n");
 
-        System.out.println("(Search will be stopped after approximately " + formatNanos(totalNanoSeconds) + ")\n");
+        System.out.println("(Search will be stopped after approximately " + formatNanos(totalNanoSeconds) + " on " + threads + " threads, seed " + seed + ")\n");
 
-        int i = 0;
-        while (System.nanoTime() - startTime < totalNanoSeconds) {
-            TropicalMatrix[] matrices = getRandomMatrices(numberOfMatrices, n, 1);
+        DecisionCache<SemigroupClosure.Result> cache = new DecisionCache<>(maxCachedClasses);
+        BatchSearch search = new BatchSearch(n, numberOfMatrices, 1, timeout, threads, seed, cache);
 
-            List<Integer> semiDecideMaxValueResult = semiDecideMaxValue(matrices, timeout);
-            boolean result = semiDecideMaxValueResult.getFirst() == 1;
-            int maxValue = semiDecideMaxValueResult.get(1);
-            if (result && maxValue > maxBounded) {
-                maxBounded = maxValue;
-                maxInstance = Arrays.copyOf(matrices, matrices.length);
-            } else if (!result && maxValue < minUnbounded) {
-                minUnbounded = maxValue;
-            }
-
-            long now = System.nanoTime();
-            if (now - lastTime > intervalNanoSeconds) {
-                lastTime = now;
-                System.out.println("minUnbounded == " + minUnbounded
-                        + "; maxBounded == " + maxBounded
-                        + "; checked " + (i+1)
-                        + " instances in " + formatNanos(now-startTime)
-                );
-            }
-            i++;
-        }
+        long startTime = System.nanoTime();
+        BatchSearch.Best best = search.run(totalNanoSeconds, intervalNanoSeconds, progress -> {
+            BatchSearch.Best current = progress.best();
+            System.out.println("minUnbounded == " + current.minUnbounded()
+                    + "; maxBounded == " + current.maxBounded()
+                    + "; provenUnbounded == " + progress.provenUnbounded()
+                    + "; checked " + progress.checked()
+                    + " instances in " + formatNanos(System.nanoTime() - startTime)
+                    + " (" + cache.hits() + " isomorphic to an earlier instance)"
+            );
+        });
 
+        int minUnbounded = best.minUnbounded();
         if (minUnbounded <= expectedBound) {
-            System.out.println("\nWarning!! minUnbounded == " + minUnbounded + " <= theoreticalMax == " + expectedBound);
+            System.out.println("\nWarning!! minUnbounded == " + minUnbounded + " <= theoreticalMax == " + expectedBound
+                    + " (instance seed " + best.minUnboundedSeed() + ")");
         }
         System.out.println("\n(Wrong) Expected bound: " + expectedBound);
-        System.out.println("Actual bound: " + maxBounded);
+        System.out.println("Actual bound: " + best.maxBounded() + " (instance seed " + best.maxBoundedSeed() + ")");
+        if (best.maxInstance() == null) return;
         System.out.println("\nExample for actual bound:\n");
-        findMinPathForMaxValue(maxInstance);
+        findMinPathForMaxValue(best.maxInstance());
     }
 
     public static String formatNanos(long nanoseconds) {
@@ -0,0 +1,185 @@
+package org.example.Matrix;
+
+import java.util.Arrays;
+
+/**
+ * Bit-packed boolean matrix: row i is stored in words consecutive longs (bit j % 64 of word j / 64 is entry (i, j)),
+ * so products and closures work on 64 entries at a time.
+ * The product ORs the rows of the right factor that are selected by the set bits of a row of the left factor,
+ * and the transitive closure is Warshall's algorithm on rows (O(n^3 / 64) instead of n - 1 products).
+ * Same semantics as BooleanMatrix, which it replaces for reachability on large graphs.
+ * */
+public final class BitMatrix {
+    private final int n;
+    private final int words;        // longs per row
+    private final long[] bits;      // row-major, row i starts at i * words
+
+    /* ------------------------------------------------------------------ */
+    /* Constructors                                                       */
+    /* ------------------------------------------------------------------ */
+
+    /** Zero matrix of dimension n */
+    public BitMatrix(int n) {
+        if (n <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
+        this.n = n;
+        this.words = (n + 63) >>> 6;
+        this.bits = new long[Math.multiplyExact(n, words)];
+    }
+
+    public BitMatrix(BitMatrix other) {
+        this.n = other.n;
+        this.words = other.words;
+        this.bits = Arrays.copyOf(other.bits, other.bits.length);
+    }
+
+    public BitMatrix(BooleanMatrix matrix) {
+        this(matrix.n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (matrix.data[i * n + j] != 0) bits[i * words + (j >>> 6)] |= 1L << j;
+            }
+        }
+    }
+
+    /** Boolean identity matrix of dimension n (1 on diag, 0 elsewhere). */
+    public static BitMatrix identity(int n) {
+        BitMatrix identity = new BitMatrix(n);
+        for (int i = 0; i < n; i++) identity.bits[i * identity.words + (i >>> 6)] |= 1L << i;
+        return identity;
+    }
+
+    /** Matrix with entry (i, j) = 1 iff the tropical entry (i, j) is finite (stored at entries[i * n + j]) */
+    static BitMatrix finiteEntries(int[] entries, int n) {
+        BitMatrix result = new BitMatrix(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (entries[i * n + j] != TropicalMatrix.INF) result.bits[i * result.words + (j >>> 6)] |= 1L << j;
+            }
+        }
+        return result;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Basic accessors                                                    */
+    /* ------------------------------------------------------------------ */
+
+    public int size() { return n; }
+
+    /** Entry (i, j) as 0 or 1 */
+    public int get(int i, int j) {
+        checkIndex(i, j);
+        return (int) (bits[i * words + (j >>> 6)] >>> j) & 1;
+    }
+
+    public void set(int i, int j, int v) {
+        checkIndex(i, j);
+        if (v != 0 && v != 1) throw new IllegalArgumentException("Value must be 0 or 1.");
+        if (v == 1) bits[i * words + (j >>> 6)] |= 1L << j;
+        else bits[i * words + (j >>> 6)] &= ~(1L << j);
+    }
+
+    /** Number of entries that are 1 in row i */
+    public int rowCount(int i) {
+        int count = 0;
+        for (int w = i * words; w < (i + 1) * words; w++) count += Long.bitCount(bits[w]);
+        return count;
+    }
+
+    public BooleanMatrix toBooleanMatrix() {
+        int[] result = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) result[i * n + j] = get(i, j);
+        }
+        return new BooleanMatrix(n, result);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Semiring operations                                                */
+    /* ------------------------------------------------------------------ */
+
+    /** Boolean matrix product (separate object, this and other remain unchanged) */
+    public BitMatrix times(BitMatrix other) {
+        ensureSameSize(other);
+        BitMatrix result = new BitMatrix(n);
+        multiply(bits, other.bits, result.bits);
+        return result;
+    }
+
+    /** Overwrites this with this * other */
+    public void timesInPlace(BitMatrix other) {
+        ensureSameSize(other);
+        long[] result = new long[bits.length];  // separate buffer in case other == this
+        multiply(bits, other.bits, result);
+        System.arraycopy(result, 0, bits, 0, bits.length);
+    }
+
+    // c = a * b: row i of c is the OR of the rows k of b with bit k set in row i of a, c must not alias a or b
+    private void multiply(long[] a, long[] b, long[] c) {
+        for (int i = 0; i < n; i++) {
+            int rowA = i * words;
+            for (int w = 0; w < words; w++) {
+                for (long word = a[rowA + w]; word != 0; word &= word - 1) {
+                    int rowB = ((w << 6) + Long.numberOfTrailingZeros(word)) * words;
+                    for (int x = 0; x < words; x++) c[rowA + x] |= b[rowB + x];
+                }
+            }
+        }
+    }
+
+    public BitMatrix pow(int k) {
+        if (k < 0) throw new IllegalArgumentException("Power must be non-negative.");
+        BitMatrix base = new BitMatrix(this);
+        BitMatrix result = identity(n);
+        for (int exp = k; exp > 0; exp >>= 1) {
+            if ((exp & 1) == 1) result.timesInPlace(base);
+            base.timesInPlace(base);
+        }
+        return result;
+    }
+
+    // here, transitive closure is reachability with 1 or more steps (not 0!!)
+    public BitMatrix transitiveClosure() {
+        BitMatrix result = new BitMatrix(this);
+        long[] r = result.bits;
+        // Warshall: after step k, (i, j) is set iff there is a path from i to j with intermediate vertices < k + 1
+        for (int k = 0; k < n; k++) {
+            int rowK = k * words;
+            int word = k >>> 6;
+            long mask = 1L << k;
+            for (int i = 0; i < n; i++) {
+                int rowI = i * words;
+                if ((r[rowI + word] & mask) == 0) continue;
+                for (int x = 0; x < words; x++) r[rowI + x] |= r[rowK + x];
+            }
+        }
+        return result;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    private void checkIndex(int i, int j) {
+        if (i < 0 || i >= n || j < 0 || j >= n) throw new IndexOutOfBoundsException("Index (" + i + ", " + j + ") out of bounds for size " + n + ".");
+    }
+
+    private void ensureSameSize(BitMatrix other) {
+        if (n != other.n) throw new IllegalArgumentException("Matrix dimensions differ.");
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        return other instanceof BitMatrix otherMatrix && otherMatrix.n == n && Arrays.equals(bits, otherMatrix.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * n + Arrays.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return toBooleanMatrix().toString();
+    }
+}
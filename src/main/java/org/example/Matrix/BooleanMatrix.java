@@ -1,6 +1,5 @@
 package org.example.Matrix;
 
-import java.util.Arrays;
 import java.util.Random;
 
 public class BooleanMatrix extends Matrix {
@@ -19,7 +18,12 @@ public class BooleanMatrix extends Matrix {
     }
 
     public BooleanMatrix(BooleanMatrix other) {
-        this(other.matrix);
+        super(other);
+    }
+
+    /** Wraps a row-major array without copying or validating it (only for results of semiring operations) */
+    BooleanMatrix(int n, int[] data) {
+        super(n, data);
     }
 
     public BooleanMatrix(int n, int v) {
@@ -31,9 +35,9 @@ public class BooleanMatrix extends Matrix {
     public BooleanMatrix(int n) {
         super(n);
         for (int i = 0; i < n; i++) {
-            Arrays.fill(matrix[i], 0);
-            matrix[i][i] = 1;
+            data[i * n + i] = 1;
         }
+        rehash();
     }
 
     public static BooleanMatrix random(int n, double oneChance) {
@@ -57,35 +61,31 @@ public class BooleanMatrix extends Matrix {
     @Override
     public BooleanMatrix times(Matrix other) {
         ensureCompatible(other);
-        int[][] result = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                for (int k = 0; k < n; k++) {
-                    if (matrix[i][k] == 1 && other.matrix[k][j] == 1) {
-                        result[i][j] = 1;
-                        break;
-                    }
-                }
-            }
-        }
-        return new BooleanMatrix(result);
+        int[] result = new int[n * n];
+        multiply(data, other.data, result, n);
+        return new BooleanMatrix(n, result);
     }
 
     @Override
     public void timesInPlace(Matrix other) {
         ensureCompatible(other);
-        other = new BooleanMatrix((BooleanMatrix) other);   // create a copy in case other == this
+        int[] result = new int[n * n];  // separate buffer in case other == this
+        multiply(data, other.data, result, n);
+        System.arraycopy(result, 0, data, 0, result.length);
+        rehash();
+    }
+
+    /** Row-major boolean product c = a * b of two n x n matrices, c must not alias a or b. */
+    private static void multiply(int[] a, int[] b, int[] c, int n) {
         for (int i = 0; i < n; i++) {
-            int[] newRow = new int[n];
-            for (int j = 0; j < n; j++) {
-                for (int k = 0; k < n; k++) {
-                    if (matrix[i][k] == 1 && other.matrix[k][j] == 1) {
-                        newRow[j] = 1;
-                        break;
-                    }
+            int rowA = i * n;
+            for (int k = 0; k < n; k++) {
+                if (a[rowA + k] == 0) continue;
+                int rowB = k * n;
+                for (int j = 0; j < n; j++) {
+                    c[rowA + j] |= b[rowB + j];
                 }
             }
-            matrix[i] = newRow;
         }
     }
 
@@ -96,17 +96,7 @@ public class BooleanMatrix extends Matrix {
 
     // here, transitive closure is reachability with 1 or more steps (not 0!!)
     public BooleanMatrix transitiveClosure() {
-        BooleanMatrix result = new BooleanMatrix(this);
-        BooleanMatrix product = new BooleanMatrix(this);
-        for (int i = 2; i <= n; i++) {
-            product.timesInPlace(this); // stores reachability with i edges
-            for (int j = 0; j < n; j++) {
-                for (int k = 0; k < n; k++) {
-                    result.matrix[j][k] |= product.matrix[j][k];
-                }
-            }
-        }
-        return result;
+        return new BitMatrix(this).transitiveClosure().toBooleanMatrix();   // Warshall on bit rows
     }
 
     /* ------------------------------------------------------------------ */
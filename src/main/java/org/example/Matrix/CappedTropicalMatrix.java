@@ -0,0 +1,123 @@
+package org.example.Matrix;
+
+/**
+ * Tropical matrix over the saturating semiring {0, 1, ..., cap, OVER, INF}:
+ * every finite value greater than cap collapses to the single token OVER (stored as cap + 1).
+ * Capping commutes with min and +, so the capped product of capped matrices is the cap of the exact product,
+ * and a finite set of capped generators always generates a finite semigroup (at most (cap + 3)^(n * n) elements).
+ * Products never overflow.
+ * */
+public class CappedTropicalMatrix extends TropicalMatrix {
+    public static final int MAX_CAP = INF / 2 - 1;     // sums of capped values must not overflow
+
+    private final int cap;
+
+    /* ------------------------------------------------------------------ */
+    /* Constructors                                                       */
+    /* ------------------------------------------------------------------ */
+
+    /** Copy of matrix with all finite values greater than cap replaced by OVER */
+    public CappedTropicalMatrix(TropicalMatrix matrix, int cap) {
+        super(matrix);
+        if (cap < 0 || cap > MAX_CAP) throw new IllegalArgumentException("Cap must be between 0 and " + MAX_CAP + ".");
+        this.cap = cap;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != INF && data[i] > cap) data[i] = cap + 1;
+        }
+        rehash();
+    }
+
+    /** Capped tropical identity matrix of dimension n */
+    public CappedTropicalMatrix(int n, int cap) {
+        this(new TropicalMatrix(n), cap);
+    }
+
+    private CappedTropicalMatrix(int n, int[] data, int cap) {
+        super(n, data);
+        this.cap = cap;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Semiring operations                                                */
+    /* ------------------------------------------------------------------ */
+
+    @Override
+    public CappedTropicalMatrix times(Matrix other) {
+        ensureCompatible(other);
+        int[] result = new int[n * n];
+        multiply(data, 0, other.data, 0, result, 0, n, cap);
+        return new CappedTropicalMatrix(n, result, cap);
+    }
+
+    @Override
+    public void timesInPlace(Matrix other) {
+        ensureCompatible(other);
+        int[] result = new int[n * n];  // separate buffer in case other == this
+        multiply(data, 0, other.data, 0, result, 0, n, cap);
+        System.arraycopy(result, 0, data, 0, result.length);
+        rehash();
+    }
+
+    @Override
+    public CappedTropicalMatrix pow(int k) {
+        return (CappedTropicalMatrix) pow(k, this, new CappedTropicalMatrix(n, cap));
+    }
+
+    @Override
+    public void multiplyLeft(int[] a, int aOffset, int[] c, int cOffset) {
+        multiply(a, aOffset, data, 0, c, cOffset, n, cap);
+    }
+
+    /** Capped min-plus product, see TropicalMatrix.multiply() (finite inputs must be at most cap + 1) */
+    static void multiply(int[] a, int aOffset, int[] b, int bOffset, int[] c, int cOffset, int n, int cap) {
+        int over = cap + 1;
+        if (n >= MinPlusKernel.MIN_SIZE && over < MinPlusKernel.LIMIT) {
+            MinPlusKernel.multiply(a, aOffset, b, bOffset, c, cOffset, n, over);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            int rowA = aOffset + i * n;
+            int rowC = cOffset + i * n;
+            for (int j = 0; j < n; j++) {
+                int min = INF;
+                for (int k = 0; k < n; k++) {
+                    int x = a[rowA + k], y = b[bOffset + k * n + j];
+                    if (x == INF || y == INF) continue;
+                    int sum = x + y;    // cannot overflow, because x, y <= cap + 1 < INF / 2
+                    if (sum < min) min = sum;
+                }
+                c[rowC + j] = min == INF ? INF : Math.min(min, over);
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    public int cap() {
+        return cap;
+    }
+
+    /** Whether entry (i, j) stands for some value greater than cap */
+    public boolean isOver(int i, int j) {
+        return get(i, j) == cap + 1;
+    }
+
+    @Override
+    protected void ensureSameType(Matrix other) {
+        if (!(other instanceof CappedTropicalMatrix capped) || capped.cap != cap) throw new IllegalArgumentException("Incompatible matrix type.");
+    }
+
+    @Override
+    public String toString() {
+        String[][] stringMatrix = new String[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int entry = data[i * n + j];
+                stringMatrix[i][j] = entry == INF ? "-" : entry > cap ? ">" + cap : Integer.toString(entry);
+            }
+        }
+        return Matrix.toString(stringMatrix);
+    }
+}
@@ -5,7 +5,10 @@ import java.util.Objects;
 
 public abstract class Matrix {
     protected final int n;            // dimension
-    protected final int[][] matrix;
+    protected final int[] data;       // row-major entries: (i, j) is stored at data[i * n + j]
+
+    private int hash;                 // cached hashCode(), only valid if hashValid
+    private boolean hashValid;
 
     /* ------------------------------------------------------------------ */
     /* Constructors                                                       */
@@ -18,29 +21,44 @@ public abstract class Matrix {
         if (n == 0) throw new IllegalArgumentException("Matrix dimension must be non-zero.");
         if (data[0].length != n) throw new IllegalArgumentException("Matrix must be a square matrix.");
 
-        this.matrix = new int[n][n];
+        this.data = new int[n * n];
         for (int i = 0; i < n; i++) {
-            matrix[i] = Arrays.copyOf(data[i], n);
+            if (data[i].length != n) throw new IllegalArgumentException("Matrix must be a square matrix.");
+            System.arraycopy(data[i], 0, this.data, i * n, n);
         }
+        rehash();
     }
 
     /** From other matrix */
     public Matrix(Matrix other) {
-        this(other.matrix);
+        this.n = other.n;
+        this.data = Arrays.copyOf(other.data, other.data.length);
+        this.hash = other.hashCode();
+        this.hashValid = true;
+    }
+
+    /** Takes ownership of the row-major array (no copy), used for results of products */
+    protected Matrix(int n, int[] data) {
+        if (data.length != n * n) throw new IllegalArgumentException("Matrix must be a square matrix.");
+        this.n = n;
+        this.data = data;
+        rehash();
     }
 
     /** With one constant for all values */
     public Matrix(int n, int v) {
         if (n <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
         this.n = n;
-        matrix = new int[n][n];
-        for (int[] row : matrix) Arrays.fill(row, v);
+        data = new int[n * n];
+        Arrays.fill(data, v);
+        rehash();
     }
 
     public Matrix(int n) {
         if (n <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
         this.n = n;
-        matrix = new int[n][n];
+        data = new int[n * n];
+        rehash();
     }
 
     /* ------------------------------------------------------------------ */
@@ -49,9 +67,12 @@ public abstract class Matrix {
 
     public int size() { return n; }
 
-    public int get(int i, int j) { return matrix[i][j]; }
+    public int get(int i, int j) { return data[i * n + j]; }
 
-    public void set(int i, int j, int v) { matrix[i][j] = v; }
+    public void set(int i, int j, int v) {
+        data[i * n + j] = v;
+        hashValid = false;
+    }
 
     /* ------------------------------------------------------------------ */
     /* Semiring operations                                                */
@@ -93,21 +114,47 @@ public abstract class Matrix {
 
     protected abstract void ensureSameType(Matrix other);
 
+    // has to be called by subclasses after they write to data directly (constructors excluded, see rehash())
+    protected void invalidateHash() {
+        hashValid = false;
+    }
+
+    // recomputes the cached hash, has to be called by subclass constructors that fill data after super()
+    protected void rehash() {
+        long fingerprint = fingerprint(data, 0, data.length);
+        hash = (int) (fingerprint ^ (fingerprint >>> 32));
+        hashValid = true;
+    }
+
+    // 64-bit hash of the entries a[offset...offset+length), shared with MatrixSet
+    static long fingerprint(int[] a, int offset, int length) {
+        long h = 0x9E3779B97F4A7C15L * (length + 1);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = (h ^ a[i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 29;
+        }
+        // final avalanche (murmur3 fmix64)
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     @Override
     public boolean equals(Object other) {
+        if (this == other) return true;
         if (!(other instanceof Matrix otherMatrix) || otherMatrix.size() != n) return false;
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (matrix[i][j] != otherMatrix.matrix[i][j]) return false;
-            }
-        }
-        return true;
+        if (hashCode() != otherMatrix.hashCode()) return false;
+        return Arrays.equals(data, otherMatrix.data);
     }
 
-    // ensures that this works with things like hashsets
+    // ensures that this works with things like hashsets, computed once and cached until the matrix is modified
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(matrix);
+        if (!hashValid) rehash();
+        return hash;
     }
 
     @Override
@@ -115,7 +162,7 @@ public abstract class Matrix {
         String[][] stringMatrix = new String[n][n];
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                stringMatrix[i][j] = Integer.toString(matrix[i][j]);
+                stringMatrix[i][j] = Integer.toString(data[i * n + j]);
             }
         }
         return toString(stringMatrix);
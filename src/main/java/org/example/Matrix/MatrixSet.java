@@ -0,0 +1,299 @@
+package org.example.Matrix;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Insertion-ordered set of tropical matrices of a fixed dimension, without one object per element.
+ * All entries are stored back to back in a single int[] slab (the matrix with id i starts at i * n * n),
+ * and an open-addressing table maps 64-bit fingerprints to ids.
+ * Ids are assigned in insertion order (0, 1, 2, ...) and never change, so a range of ids can be used as a worklist.
+ * */
+public class MatrixSet {
+    private static final int EMPTY = -1;
+    private static final int MAX_ELEMENTS = Integer.MAX_VALUE - 8;
+
+    private final int n;
+    private final int width;            // entries per matrix (n * n)
+
+    private int[] slab;                 // row-major entries of all matrices, ordered by id
+    private int size;
+
+    private long[] fingerprints;        // hash table: fingerprint of the matrix in the same slot
+    private int[] ids;                  // hash table: id of the matrix in the same slot, EMPTY if unused
+    private int mask;                   // table length - 1 (table length is a power of two)
+
+    /* ------------------------------------------------------------------ */
+    /* Constructors                                                       */
+    /* ------------------------------------------------------------------ */
+
+    public MatrixSet(int n) {
+        this(n, 16);
+    }
+
+    public MatrixSet(int n, int expectedSize) {
+        if (n <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
+        if (expectedSize < 1) expectedSize = 1;
+        this.n = n;
+        this.width = n * n;
+        this.slab = new int[Math.multiplyExact(expectedSize, width)];
+        int tableSize = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        this.fingerprints = new long[tableSize];
+        this.ids = new int[tableSize];
+        Arrays.fill(ids, EMPTY);
+        this.mask = tableSize - 1;
+    }
+
+    /** Set of the matrices of the snapshot, with the same ids */
+    public MatrixSet(Snapshot snapshot) {
+        this(snapshot.n, snapshot.size);
+        for (int id = 0; id < snapshot.size; id++) {
+            if (addIfAbsent(snapshot.slab, id * width) < 0) throw new IllegalArgumentException("Snapshot contains duplicates.");
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Basic accessors                                                    */
+    /* ------------------------------------------------------------------ */
+
+    public int size() { return size; }
+
+    public int dimension() { return n; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /** Approximate number of bytes of the slab and the hash table */
+    public long retainedBytes() {
+        return 4L * slab.length + 8L * fingerprints.length + 4L * ids.length;
+    }
+
+    /** Entry (i, j) of the matrix with the given id */
+    public int get(int id, int i, int j) {
+        checkId(id);
+        return slab[id * width + i * n + j];
+    }
+
+    /** Materializes the matrix with the given id as a separate object */
+    public TropicalMatrix get(int id) {
+        checkId(id);
+        int from = id * width;
+        return new TropicalMatrix(n, Arrays.copyOfRange(slab, from, from + width));
+    }
+
+    /** Copies the row-major entries of the matrix with the given id to dst[offset...] */
+    public void copy(int id, int[] dst, int offset) {
+        checkId(id);
+        System.arraycopy(slab, id * width, dst, offset, width);
+    }
+
+    /** Largest finite entry of the matrix with the given id */
+    public int maxValue(int id) {
+        checkId(id);
+        int max = 0;
+        for (int i = id * width, end = i + width; i < end; i++) {
+            if (slab[i] != TropicalMatrix.INF && slab[i] > max) max = slab[i];
+        }
+        return max;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Semiring operations                                                */
+    /* ------------------------------------------------------------------ */
+
+    /** Writes the tropical product (matrix with the given id) * right to dst[offset...], in the semiring of right (e.g. CappedTropicalMatrix) */
+    public void multiply(int id, TropicalMatrix right, int[] dst, int offset) {
+        checkId(id);
+        if (right.n != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+        right.multiplyLeft(slab, id * width, dst, offset);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Set operations                                                     */
+    /* ------------------------------------------------------------------ */
+
+    public boolean add(TropicalMatrix matrix) {
+        checkSize(matrix);
+        return addIfAbsent(matrix.data, 0) >= 0;
+    }
+
+    public boolean contains(TropicalMatrix matrix) {
+        return indexOf(matrix) >= 0;
+    }
+
+    /** Id of the given matrix, or -1 if it is not contained */
+    public int indexOf(TropicalMatrix matrix) {
+        checkSize(matrix);
+        return indexOf(matrix.data, 0);
+    }
+
+    /** Id of the matrix stored at src[offset...], or -1 if it is not contained */
+    public int indexOf(int[] src, int offset) {
+        long fingerprint = Matrix.fingerprint(src, offset, width);
+        for (int slot = slot(fingerprint); ; slot = (slot + 1) & mask) {
+            int id = ids[slot];
+            if (id == EMPTY) return -1;
+            if (fingerprints[slot] == fingerprint && sameEntries(id, src, offset)) return id;
+        }
+    }
+
+    /**
+     * Inserts the matrix stored at src[offset...] unless it is already contained.
+     * Returns the id of the new matrix, or (-id - 1) with the id of the existing matrix.
+     * */
+    public int addIfAbsent(int[] src, int offset) {
+        long fingerprint = Matrix.fingerprint(src, offset, width);
+        int slot = slot(fingerprint);
+        for (; ; slot = (slot + 1) & mask) {
+            int id = ids[slot];
+            if (id == EMPTY) break;
+            if (fingerprints[slot] == fingerprint && sameEntries(id, src, offset)) return -id - 1;
+        }
+
+        if (size == MAX_ELEMENTS || (long) (size + 1) * width > MAX_ELEMENTS) throw new IllegalStateException("MatrixSet is full.");
+        if (size * width == slab.length) {
+            slab = Arrays.copyOf(slab, (int) Math.min(MAX_ELEMENTS / width * (long) width, 2L * slab.length));
+        }
+        System.arraycopy(src, offset, slab, size * width, width);
+        fingerprints[slot] = fingerprint;
+        ids[slot] = size;
+        if (++size * 2 > ids.length) resize();
+        return size - 1;
+    }
+
+    /**
+     * Batch version of addIfAbsent(): inserts count matrices stored back to back at src[0...].
+     * isNew[i] is set to whether the i-th matrix was inserted (false for duplicates, also within the batch).
+     * Returns the number of inserted matrices.
+     * */
+    public int addAll(int[] src, int count, boolean[] isNew) {
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            isNew[i] = addIfAbsent(src, i * width) >= 0;
+            if (isNew[i]) added++;
+        }
+        return added;
+    }
+
+    /** Inserts all elements of the other set, in order of their ids */
+    public void addAll(MatrixSet other) {
+        ensureSameSize(other);
+        for (int id = 0; id < other.size; id++) {
+            addIfAbsent(other.slab, id * width);
+        }
+    }
+
+    public boolean containsAll(MatrixSet other) {
+        ensureSameSize(other);
+        if (other.size > size) return false;
+        for (int id = 0; id < other.size; id++) {
+            if (indexOf(other.slab, id * width) < 0) return false;
+        }
+        return true;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Snapshots                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * The matrices with ids [0, size()) at the time of the call, in O(1) (nothing is copied):
+     * the slab is append-only and is replaced (not modified) when it grows, so the snapshot stays valid
+     * while more matrices are added, and it may be written by another thread.
+     * */
+    public Snapshot snapshot() {
+        return new Snapshot(n, slab, size);
+    }
+
+    public static final class Snapshot {
+        private static final int BUFFER_INTS = 1 << 14;
+
+        private final int n;
+        private final int[] slab;
+        private final int size;
+
+        private Snapshot(int n, int[] slab, int size) {
+            this.n = n;
+            this.slab = slab;
+            this.size = size;
+        }
+
+        public int dimension() { return n; }
+
+        public int size() { return size; }
+
+        /** Writes the entries of all matrices (in order of their ids, row-major, as big-endian ints) */
+        public void writeTo(WritableByteChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(4 * BUFFER_INTS);
+            int length = size * n * n;
+            for (int from = 0; from < length; from += BUFFER_INTS) {
+                int count = Math.min(BUFFER_INTS, length - from);
+                buffer.clear();
+                buffer.asIntBuffer().put(slab, from, count);
+                buffer.limit(4 * count);
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        }
+
+        /** Reads the entries of size n x n matrices written by writeTo() */
+        public static Snapshot readFrom(ReadableByteChannel channel, int n, int size) throws IOException {
+            if (n <= 0 || size < 0 || (long) size * n * n > MAX_ELEMENTS) throw new IllegalArgumentException("Invalid snapshot size.");
+            int[] slab = new int[size * n * n];
+            ByteBuffer buffer = ByteBuffer.allocate(4 * BUFFER_INTS);
+            for (int from = 0; from < slab.length; from += BUFFER_INTS) {
+                int count = Math.min(BUFFER_INTS, slab.length - from);
+                buffer.clear().limit(4 * count);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) throw new EOFException("Snapshot is truncated.");
+                }
+                buffer.flip();
+                buffer.asIntBuffer().get(slab, from, count);
+            }
+            return new Snapshot(n, slab, size);
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    private boolean sameEntries(int id, int[] src, int offset) {
+        int from = id * width;
+        return Arrays.equals(slab, from, from + width, src, offset, offset + width);
+    }
+
+    private void resize() {
+        int[] oldIds = ids;
+        long[] oldFingerprints = fingerprints;
+        ids = new int[oldIds.length * 2];
+        fingerprints = new long[oldIds.length * 2];
+        Arrays.fill(ids, EMPTY);
+        mask = ids.length - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] == EMPTY) continue;
+            int slot = slot(oldFingerprints[i]);
+            while (ids[slot] != EMPTY) slot = (slot + 1) & mask;
+            ids[slot] = oldIds[i];
+            fingerprints[slot] = oldFingerprints[i];
+        }
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Id " + id + " out of bounds for size " + size + ".");
+    }
+
+    private void checkSize(Matrix matrix) {
+        if (matrix.n != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+    }
+
+    private void ensureSameSize(MatrixSet other) {
+        if (other.n != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+    }
+}
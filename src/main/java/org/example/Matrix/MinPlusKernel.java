@@ -0,0 +1,76 @@
+package org.example.Matrix;
+
+import java.util.Arrays;
+
+/**
+ * Branch-free min-plus product for matrices with dimension at least MIN_SIZE, used by TropicalMatrix and CappedTropicalMatrix.
+ * <p>
+ * Infinity is replaced by SENTINEL = 2^30, which is clamped before every addition, so a sum is at least SENTINEL iff
+ * one of its summands is infinite, and no sum can overflow as long as all finite entries are less than LIMIT = 2^29
+ * (checked once per operand by fits(), instead of once per addition).
+ * The rows of the product are computed in i-k-j order, so the inner loop runs across j over contiguous rows:
+ * with the Vector API (jdk.incubator.vector, needs --add-modules jdk.incubator.vector at compile and run time) it is computed
+ * by VectorMinPlusKernel, otherwise by a scalar loop (which the JIT may still vectorize).
+ * The Vector API can be switched off with -Dtropical.vector=false.
+ * */
+final class MinPlusKernel {
+    static final int MIN_SIZE = 16;
+    static final int SENTINEL = 1 << 30;
+    static final int LIMIT = 1 << 29;
+
+    static final boolean VECTORIZED = Boolean.parseBoolean(System.getProperty("tropical.vector", "true")) && vectorApiAvailable();
+
+    private MinPlusKernel() {
+    }
+
+    private static boolean vectorApiAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            return VectorMinPlusKernel.lanes() >= 4;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /** Whether all finite entries of the n x n matrix stored at m[offset...] are less than LIMIT */
+    static boolean fits(int[] m, int offset, int n) {
+        int max = 0;
+        for (int i = offset, end = offset + n * n; i < end; i++) {
+            int entry = m[i];
+            if (entry != TropicalMatrix.INF) max = Math.max(max, entry);
+        }
+        return max < LIMIT;
+    }
+
+    /**
+     * Row-major min-plus product of two n x n matrices stored at a[aOffset...] and b[bOffset...], written to c[cOffset...]
+     * (must not overlap a or b), with all finite results greater than over replaced by over (INF for the exact product).
+     * All finite entries of a and b must be less than LIMIT.
+     * */
+    static void multiply(int[] a, int aOffset, int[] b, int bOffset, int[] c, int cOffset, int n, int over) {
+        if (VECTORIZED) {
+            VectorMinPlusKernel.multiply(a, aOffset, b, bOffset, c, cOffset, n, over);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            int rowA = aOffset + i * n;
+            int rowC = cOffset + i * n;
+            Arrays.fill(c, rowC, rowC + n, SENTINEL);
+            for (int k = 0; k < n; k++) {
+                int x = a[rowA + k];
+                if (x == TropicalMatrix.INF) continue;
+                int rowB = bOffset + k * n;
+                for (int j = 0; j < n; j++) c[rowC + j] = Math.min(c[rowC + j], x + Math.min(b[rowB + j], SENTINEL));
+            }
+            decode(c, rowC, n, over);
+        }
+    }
+
+    /** Replaces sums with an infinite summand by INF and clamps the other ones to over */
+    static void decode(int[] c, int offset, int length, int over) {
+        for (int j = offset; j < offset + length; j++) {
+            int sum = c[j];
+            c[j] = sum >= SENTINEL ? TropicalMatrix.INF : Math.min(sum, over);
+        }
+    }
+}
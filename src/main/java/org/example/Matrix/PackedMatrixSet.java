@@ -0,0 +1,288 @@
+package org.example.Matrix;
+
+import java.util.Arrays;
+
+/**
+ * Insertion-ordered set of tropical matrices of dimension at most MAX_DIMENSION, each packed into a single long:
+ * entry (i, j) is the bit field of width bits() at bit (i * n + j) * bits(), holding the value itself (0..cap()),
+ * the code OVER (some value greater than cap()) or the code INF (all ones). The width is 8 bits for n <= 2, 7 for n = 3 and 4 for n = 4,
+ * so cap() is 253, 125 and 13.
+ * <p>
+ * Codes are ordered like the values they stand for (finite < OVER < INF), so min is a plain comparison of codes.
+ * Like in CappedTropicalMatrix, sums greater than cap() saturate to OVER, so a product is exact iff hasOverflow() is false.
+ * <p>
+ * Products with a fixed right factor b (e.g. a generator) use a row table of b (see rowTable()): row k of b plus every code x,
+ * as a packed row. Then the product a * b is the minimum over k of the matrices whose row i is the table entry for (k, a[i][k]),
+ * and the minimum of two packed matrices is computed on all fields at once (SWAR: even and odd fields separately, so the
+ * field above each compared field is free for the borrow of the subtraction). A 4 x 4 product is 16 table lookups and 3 such minima.
+ * Ids are assigned in insertion order and the set is a plain open-addressing table of ids over a long[] of the elements
+ * (same conventions as MatrixSet).
+ * */
+public final class PackedMatrixSet {
+    public static final int MAX_DIMENSION = 4;
+
+    private static final int EMPTY = -1;
+    private static final int MAX_ELEMENTS = Integer.MAX_VALUE - 8;
+    private static final byte[][] SUMS = new byte[9][];    // by width, see sums()
+
+    static {
+        for (int bits : new int[]{4, 7, 8}) SUMS[bits] = sums(bits);
+    }
+
+    private final int n;
+    private final int bits;             // width of an entry
+    private final int fieldMask;        // (1 << bits) - 1, also the code of INF
+    private final int over;             // code of OVER
+    private final byte[] sums;
+    private final long evenFields;      // all bits of the fields 0, 2, 4, ...
+    private final long guards;          // lowest bit of the field above every even field
+
+    private long[] elements;            // packed matrices, ordered by id
+    private int size;
+
+    private int[] ids;                  // hash table: id of the matrix in the slot, EMPTY if unused
+    private int mask;                   // table length - 1 (table length is a power of two)
+
+    /* ------------------------------------------------------------------ */
+    /* Constructors                                                       */
+    /* ------------------------------------------------------------------ */
+
+    public PackedMatrixSet(int n) {
+        if (!supports(n)) throw new IllegalArgumentException("Size must be between 1 and " + MAX_DIMENSION + ".");
+        this.n = n;
+        this.bits = n <= 2 ? 8 : n == 3 ? 7 : 4;
+        this.fieldMask = (1 << bits) - 1;
+        this.over = fieldMask - 1;
+        this.sums = SUMS[bits];
+        long even = 0, guard = 0;
+        for (int f = 0; f < n * n; f += 2) {
+            even |= (long) fieldMask << (f * bits);
+            guard |= 1L << ((f + 1) * bits);
+        }
+        this.evenFields = even;
+        this.guards = guard;
+        this.elements = new long[16];
+        this.ids = new int[32];
+        Arrays.fill(ids, EMPTY);
+        this.mask = ids.length - 1;
+    }
+
+    /** Whether matrices of dimension n can be packed */
+    public static boolean supports(int n) {
+        return n >= 1 && n <= MAX_DIMENSION;
+    }
+
+    // sums[(x << bits) | y] = code of x + y, where codes are values 0..cap, OVER = 2^bits - 2 and INF = 2^bits - 1
+    private static byte[] sums(int bits) {
+        int inf = (1 << bits) - 1, over = inf - 1;
+        byte[] table = new byte[1 << (2 * bits)];
+        for (int x = 0; x <= inf; x++) {
+            for (int y = 0; y <= inf; y++) {
+                int sum;
+                if (x == inf || y == inf) sum = inf;
+                else if (x == over || y == over) sum = over;
+                else sum = Math.min(x + y, over);
+                table[(x << bits) | y] = (byte) sum;
+            }
+        }
+        return table;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Basic accessors                                                    */
+    /* ------------------------------------------------------------------ */
+
+    public int size() { return size; }
+
+    public int dimension() { return n; }
+
+    /** Approximate number of bytes of the elements and the hash table */
+    public long retainedBytes() {
+        return 8L * elements.length + 4L * ids.length;
+    }
+
+    /** Width of an entry in bits */
+    public int bits() { return bits; }
+
+    /** Largest finite entry that can be stored exactly */
+    public int cap() { return over - 1; }
+
+    /** Packed matrix with the given id */
+    public long get(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Id " + id + " out of bounds for size " + size + ".");
+        return elements[id];
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Packing                                                            */
+    /* ------------------------------------------------------------------ */
+
+    /** Whether all finite entries of the n x n matrix stored at src[offset...] are at most cap() */
+    public boolean fits(int[] src, int offset) {
+        for (int i = offset; i < offset + n * n; i++) {
+            if (src[i] != TropicalMatrix.INF && src[i] > cap()) return false;
+        }
+        return true;
+    }
+
+    /** Packs the n x n matrix stored at src[offset...], whose finite entries must be at most cap() (see fits()) */
+    public long pack(int[] src, int offset) {
+        if (!fits(src, offset)) throw new IllegalArgumentException("Entries must be at most " + cap() + ".");
+        long packed = 0;
+        for (int i = 0; i < n * n; i++) {
+            long code = src[offset + i] == TropicalMatrix.INF ? fieldMask : src[offset + i];
+            packed |= code << (i * bits);
+        }
+        return packed;
+    }
+
+    /** Writes the row-major entries of the packed matrix to dst[offset...] (which must not have overflowed, see hasOverflow()) */
+    public void unpack(long matrix, int[] dst, int offset) {
+        for (int i = 0; i < n * n; i++) {
+            int code = (int) (matrix >>> (i * bits)) & fieldMask;
+            dst[offset + i] = code == fieldMask ? TropicalMatrix.INF : code;
+        }
+    }
+
+    /** Whether some entry of the packed matrix is OVER, i.e. greater than cap() */
+    public boolean hasOverflow(long matrix) {
+        for (int i = 0; i < n * n; i++) {
+            if (((int) (matrix >>> (i * bits)) & fieldMask) == over) return true;
+        }
+        return false;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Semiring operations                                                */
+    /* ------------------------------------------------------------------ */
+
+    /** Tropical product a * b of two packed matrices (entries greater than cap() become OVER) */
+    public long multiply(long a, long b) {
+        long product = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int min = fieldMask;
+                for (int k = 0; k < n; k++) {
+                    int x = (int) (a >>> ((i * n + k) * bits)) & fieldMask;
+                    int y = (int) (b >>> ((k * n + j) * bits)) & fieldMask;
+                    min = Math.min(min, sums[(x << bits) | y] & 0xFF);
+                }
+                product |= (long) min << ((i * n + j) * bits);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Row table of the packed matrix b for multiply(long, long[]): entry (k << bits()) | x is row k of b plus the code x,
+     * as a packed row (n fields)
+     * */
+    public long[] rowTable(long b) {
+        long[] table = new long[n << bits];
+        for (int k = 0; k < n; k++) {
+            for (int x = 0; x <= fieldMask; x++) {
+                long row = 0;
+                for (int j = 0; j < n; j++) {
+                    int y = (int) (b >>> ((k * n + j) * bits)) & fieldMask;
+                    row |= (long) (sums[(x << bits) | y] & 0xFF) << (j * bits);
+                }
+                table[(k << bits) | x] = row;
+            }
+        }
+        return table;
+    }
+
+    /** Tropical product a * b, where table is rowTable(b) (same result as multiply(a, b)) */
+    public long multiply(long a, long[] table) {
+        int rowBits = n * bits;
+        long product = 0;
+        for (int k = 0; k < n; k++) {
+            long terms = 0;     // entry (i, j) is a[i][k] + b[k][j]
+            for (int i = 0; i < n; i++) {
+                int x = (int) (a >>> ((i * n + k) * bits)) & fieldMask;
+                terms |= table[(k << bits) | x] << (i * rowBits);
+            }
+            product = k == 0 ? terms : min(product, terms);
+        }
+        return product;
+    }
+
+    // field-wise minimum of two packed matrices
+    private long min(long a, long b) {
+        return minOfEvenFields(a, b) | minOfEvenFields(a >>> bits, b >>> bits) << bits;
+    }
+
+    private long minOfEvenFields(long a, long b) {
+        a &= evenFields;
+        b &= evenFields;
+        long greaterOrEqual = (((a | guards) - b) & guards) >>> bits;     // lowest bit of every field where a >= b
+        long select = greaterOrEqual * fieldMask;
+        return (b & select) | (a & ~select);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Set operations                                                     */
+    /* ------------------------------------------------------------------ */
+
+    /** Id of the packed matrix, or -1 if it is not contained */
+    public int indexOf(long matrix) {
+        for (int slot = slot(matrix); ; slot = (slot + 1) & mask) {
+            int id = ids[slot];
+            if (id == EMPTY) return -1;
+            if (elements[id] == matrix) return id;
+        }
+    }
+
+    /**
+     * Inserts the packed matrix unless it is already contained.
+     * Returns the id of the new matrix, or (-id - 1) with the id of the existing matrix.
+     * */
+    public int addIfAbsent(long matrix) {
+        int slot = slot(matrix);
+        for (; ; slot = (slot + 1) & mask) {
+            int id = ids[slot];
+            if (id == EMPTY) break;
+            if (elements[id] == matrix) return -id - 1;
+        }
+
+        if (size == MAX_ELEMENTS) throw new IllegalStateException("PackedMatrixSet is full.");
+        if (size == elements.length) elements = Arrays.copyOf(elements, (int) Math.min(MAX_ELEMENTS, 2L * size));
+        elements[size] = matrix;
+        ids[slot] = size;
+        if (++size * 2 > ids.length) resize();
+        return size - 1;
+    }
+
+    /** All matrices as a MatrixSet, with the same ids */
+    public MatrixSet toMatrixSet() {
+        MatrixSet set = new MatrixSet(n, Math.max(16, size));
+        int[] entries = new int[n * n];
+        for (int id = 0; id < size; id++) {
+            unpack(elements[id], entries, 0);
+            set.addIfAbsent(entries, 0);
+        }
+        return set;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    private int slot(long matrix) {
+        long h = matrix * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) h & mask;
+    }
+
+    private void resize() {
+        int[] newIds = new int[ids.length * 2];
+        Arrays.fill(newIds, EMPTY);
+        mask = newIds.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = slot(elements[id]);
+            while (newIds[slot] != EMPTY) slot = (slot + 1) & mask;
+            newIds[slot] = id;
+        }
+        ids = newIds;
+    }
+}
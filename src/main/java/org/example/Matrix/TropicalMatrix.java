@@ -2,6 +2,7 @@ package org.example.Matrix;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class TropicalMatrix extends Matrix{
     public static final int INF = Integer.MAX_VALUE;
@@ -20,7 +21,12 @@ public class TropicalMatrix extends Matrix{
     }
 
     public TropicalMatrix(TropicalMatrix other) {
-        this(other.matrix);
+        super(other);
+    }
+
+    /** Wraps a row-major array without copying or validating it (only for results of semiring operations) */
+    TropicalMatrix(int n, int[] data) {
+        super(n, data);
     }
 
     public TropicalMatrix(int n, int v) {
@@ -31,10 +37,11 @@ public class TropicalMatrix extends Matrix{
     /** Tropical identity matrix of dimension n (0 on diag, infinity elsewhere). */
     public TropicalMatrix(int n) {
         super(n);
+        Arrays.fill(data, INF);
         for (int i = 0; i < n; i++) {
-            Arrays.fill(matrix[i], INF);
-            matrix[i][i] = 0;
+            data[i * n + i] = 0;
         }
+        rehash();
     }
 
     /** Generates a random tropical matrix:
@@ -42,13 +49,17 @@ public class TropicalMatrix extends Matrix{
      * otherwise, it will be a random number between 1 and max.
      * */
     public static TropicalMatrix random(int n, int max, double zeroChance, double infChance) {
+        return random(n, max, zeroChance, infChance, new Random());
+    }
+
+    /** Same as random(int, int, double, double), but draws from the given generator (e.g. a seeded SplittableRandom, for reproducible instances) */
+    public static TropicalMatrix random(int n, int max, double zeroChance, double infChance, RandomGenerator random) {
         if (zeroChance < 0 || zeroChance > 1) throw new IllegalArgumentException("zeroChance must be between 0 and 1.");
         if (infChance < 0 || infChance > 1) throw new IllegalArgumentException("infChance must be between 0 and 1.");
         if (zeroChance + infChance > 1) throw new IllegalArgumentException("zeroChance + infChance must be between 0 and 1.");
 
         int[][] matrix = new int[n][n];
         infChance += zeroChance;
-        Random random = new Random();
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
                 double r = 1 - random.nextDouble();
@@ -72,36 +83,18 @@ public class TropicalMatrix extends Matrix{
     @Override
     public TropicalMatrix times(Matrix other) {
         ensureCompatible(other);
-        int[][] result = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                int min = INF;
-                for (int k = 0; k < n; k++) {
-                    int sum = addInts(matrix[i][k], other.matrix[k][j]);
-                    if (sum < min) min = sum;
-                }
-                result[i][j] = min;
-            }
-        }
-        return new TropicalMatrix(result);
+        int[] result = new int[n * n];
+        multiply(data, 0, other.data, 0, result, 0, n);
+        return new TropicalMatrix(n, result);
     }
 
     @Override
     public void timesInPlace(Matrix other) {
         ensureCompatible(other);
-        other = new TropicalMatrix((TropicalMatrix) other); // create a copy in case other == this
-        for (int i = 0; i < n; i++) {
-            int[] newRow = new int[n];
-            for (int j = 0; j < n; j++) {
-                int min = INF;
-                for (int k = 0; k < n; k++) {
-                    int sum = addInts(matrix[i][k], other.matrix[k][j]);
-                    if (sum < min) min = sum;
-                }
-                newRow[j] = min;
-            }
-            matrix[i] = newRow;
-        }
+        int[] result = new int[n * n];  // separate buffer in case other == this
+        multiply(data, 0, other.data, 0, result, 0, n);
+        System.arraycopy(result, 0, data, 0, result.length);
+        rehash();
     }
 
     @Override
@@ -113,6 +106,37 @@ public class TropicalMatrix extends Matrix{
     /* Utilities                                                          */
     /* ------------------------------------------------------------------ */
 
+    /**
+     * Writes the product (n x n matrix stored at a[aOffset...]) * this to c[cOffset...], subclasses may use a different semiring
+     * (for closures over flat storage, e.g. MatrixSet and ExternalClosure)
+     * */
+    public void multiplyLeft(int[] a, int aOffset, int[] c, int cOffset) {
+        multiply(a, aOffset, data, 0, c, cOffset, n);
+    }
+
+    /**
+     * Row-major min-plus product of two n x n matrices stored at a[aOffset...] and b[bOffset...], written to c[cOffset...] (must not overlap a or b).
+     * Uses MinPlusKernel for n >= MinPlusKernel.MIN_SIZE if no sum can overflow, otherwise every sum is checked for overflow.
+     * */
+    static void multiply(int[] a, int aOffset, int[] b, int bOffset, int[] c, int cOffset, int n) {
+        if (n >= MinPlusKernel.MIN_SIZE && MinPlusKernel.fits(a, aOffset, n) && MinPlusKernel.fits(b, bOffset, n)) {
+            MinPlusKernel.multiply(a, aOffset, b, bOffset, c, cOffset, n, INF);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            int rowA = aOffset + i * n;
+            int rowC = cOffset + i * n;
+            for (int j = 0; j < n; j++) {
+                int min = INF;
+                for (int k = 0; k < n; k++) {
+                    int sum = addInts(a[rowA + k], b[bOffset + k * n + j]);
+                    if (sum < min) min = sum;
+                }
+                c[rowC + j] = min;
+            }
+        }
+    }
+
     /** Tropical multiplication (∞ + x = ∞). */
     private static int addInts(int x, int y) {
         if (x == INF || y == INF) return INF;
@@ -122,32 +146,23 @@ public class TropicalMatrix extends Matrix{
     }
 
     public TropicalMatrix normalized() {
-        int[][] data = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                data[i][j] = matrix[i][j] == INF ? INF : Math.min(1, matrix[i][j]);
-            }
+        int[] result = new int[n * n];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = data[i] == INF ? INF : Math.min(1, data[i]);
         }
-        return new TropicalMatrix(data);
+        return new TropicalMatrix(n, result);
     }
 
-    public BooleanMatrix booleanAbstraction() {
-        int[][] data = new int[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                data[i][j] = matrix[i][j] == INF ? 0 : 1;
-            }
-        }
-        return new BooleanMatrix(data);
+    /** Entry (i, j) is 1 iff the entry (i, j) of this is finite */
+    public BitMatrix booleanAbstraction() {
+        return BitMatrix.finiteEntries(data, n);
     }
 
     public int maxValue() {
         int max = 0;
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (matrix[i][j] == INF) continue;
-                max = Math.max(max, matrix[i][j]);
-            }
+        for (int entry : data) {
+            if (entry == INF) continue;
+            max = Math.max(max, entry);
         }
         return max;
     }
@@ -167,7 +182,8 @@ public class TropicalMatrix extends Matrix{
         String[][] stringMatrix = new String[n][n];
         for (int i = 0; i < n; i++) {
             for (int j = 0; j < n; j++) {
-                stringMatrix[i][j] = matrix[i][j] == INF ? "-" : Integer.toString(matrix[i][j]);
+                int entry = data[i * n + j];
+                stringMatrix[i][j] = entry == INF ? "-" : Integer.toString(entry);
             }
         }
         return Matrix.toString(stringMatrix);
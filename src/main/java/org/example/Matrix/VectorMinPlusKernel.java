@@ -0,0 +1,41 @@
+package org.example.Matrix;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/** Vector API version of MinPlusKernel.multiply() (only loaded if jdk.incubator.vector is available, see MinPlusKernel) */
+final class VectorMinPlusKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorMinPlusKernel() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static void multiply(int[] a, int aOffset, int[] b, int bOffset, int[] c, int cOffset, int n, int over) {
+        int sentinel = MinPlusKernel.SENTINEL;
+        int bound = SPECIES.loopBound(n);
+        for (int i = 0; i < n; i++) {
+            int rowA = aOffset + i * n;
+            int rowC = cOffset + i * n;
+            Arrays.fill(c, rowC, rowC + n, sentinel);
+            for (int k = 0; k < n; k++) {
+                int x = a[rowA + k];
+                if (x == TropicalMatrix.INF) continue;
+                IntVector xs = IntVector.broadcast(SPECIES, x);
+                int rowB = bOffset + k * n;
+                int j = 0;
+                for (; j < bound; j += SPECIES.length()) {
+                    IntVector sums = IntVector.fromArray(SPECIES, b, rowB + j).min(sentinel).add(xs);
+                    IntVector.fromArray(SPECIES, c, rowC + j).min(sums).intoArray(c, rowC + j);
+                }
+                for (; j < n; j++) c[rowC + j] = Math.min(c[rowC + j], x + Math.min(b[rowB + j], sentinel));
+            }
+            MinPlusKernel.decode(c, rowC, n, over);
+        }
+    }
+}
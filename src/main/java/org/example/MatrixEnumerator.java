@@ -0,0 +1,289 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy enumeration of all n x n tropical matrices with entries in {0, 1, ..., maxValue, infinity}, and of all instances
+ * (sets of k distinct such matrices), in constant memory.
+ * <p>
+ * Matrix number i has the base-(maxValue + 2) digits of i as its entries (row-major, least significant digit first,
+ * the largest digit stands for infinity), which is the order of TropicalMatrixGenerator.getAllMatrices().
+ * Instances are the k-combinations c_0 < c_1 < ... < c_(k-1) of matrix numbers in colexicographic order
+ * (ranked by the combinatorial number system, rank = sum of C(c_i, i + 1)), so every instance appears once,
+ * with its matrices in a fixed order and without repetitions.
+ * <p>
+ * Both streams are backed by SIZED range spliterators with long indices: splitting just halves the index range,
+ * and elements are produced by stepping an odometer (resp. a combination) in reusable buffers, not by materializing lists.
+ * */
+public class MatrixEnumerator {
+    private final int n;
+    private final int maxValue;
+    private final int base;         // number of distinct entries (maxValue + 2)
+    private final long count;       // number of matrices
+
+    public MatrixEnumerator(int n, int maxValue) {
+        if (n <= 0) throw new IllegalArgumentException("Size must be greater than 0.");
+        if (maxValue < 0 || maxValue >= TropicalMatrix.INF - 1) throw new IllegalArgumentException("maxValue must be non-negative and finite.");
+        this.n = n;
+        this.maxValue = maxValue;
+        this.base = maxValue + 2;
+        long count = 1;
+        try {
+            for (int i = 0; i < n * n; i++) count = Math.multiplyExact(count, base);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Too many matrices to enumerate (more than " + Long.MAX_VALUE + ").");
+        }
+        this.count = count;
+    }
+
+    /** Number of matrices */
+    public long count() {
+        return count;
+    }
+
+    /** Number of instances of k distinct matrices (C(count(), k)) */
+    public long instanceCount(int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1.");
+        long result = binomial(count, k);
+        if (result < 0) throw new IllegalArgumentException("Too many instances to enumerate (more than " + Long.MAX_VALUE + ").");
+        return result;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Matrices                                                           */
+    /* ------------------------------------------------------------------ */
+
+    /** Writes the row-major entries of matrix number index to dst[0 ... n * n - 1] */
+    public void decode(long index, int[] dst) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for count " + count + ".");
+        for (int j = 0; j < n * n; j++) {
+            dst[j] = value((int) (index % base));
+            index /= base;
+        }
+    }
+
+    /** Matrix number index */
+    public TropicalMatrix matrix(long index) {
+        int[] entries = new int[n * n];
+        decode(index, entries);
+        return toMatrix(entries);
+    }
+
+    /** All matrices in order (use parallel() to enumerate index ranges on all cores) */
+    public Stream<TropicalMatrix> matrices() {
+        return StreamSupport.stream(new MatrixSpliterator(0, count), false);
+    }
+
+    /** Matrices with numbers in [from, to) in order */
+    public Stream<TropicalMatrix> matrices(long from, long to) {
+        if (from < 0 || from > to || to > count) throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for count " + count + ".");
+        return StreamSupport.stream(new MatrixSpliterator(from, to), false);
+    }
+
+    private final class MatrixSpliterator implements Spliterator<TropicalMatrix> {
+        private long index;
+        private final long end;
+        private int[] digits;           // odometer of the entries of matrix number index (decoded lazily, so that splitting stays O(1))
+        private final int[][] rows = new int[n][n];
+
+        MatrixSpliterator(long from, long to) {
+            this.index = from;
+            this.end = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super TropicalMatrix> action) {
+            if (index >= end) return false;
+            if (digits == null) {
+                digits = new int[n * n];
+                long code = index;
+                for (int j = 0; j < n * n; j++) {
+                    digits[j] = (int) (code % base);
+                    code /= base;
+                }
+            }
+            for (int j = 0; j < n * n; j++) rows[j / n][j % n] = value(digits[j]);
+            index++;
+            for (int j = 0; j < n * n && ++digits[j] == base; j++) digits[j] = 0;
+            action.accept(new TropicalMatrix(rows));
+            return true;
+        }
+
+        @Override
+        public Spliterator<TropicalMatrix> trySplit() {
+            if (digits != null || end - index < 2) return null;
+            long mid = index + (end - index) / 2;
+            Spliterator<TropicalMatrix> prefix = new MatrixSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Instances                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /** Matrix numbers c_0 < ... < c_(k-1) of the instance with the given colexicographic rank */
+    public long[] unrank(long rank, int k) {
+        long total = instanceCount(k);
+        if (rank < 0 || rank >= total) throw new IndexOutOfBoundsException("Rank " + rank + " out of bounds for count " + total + ".");
+        long[] combination = new long[k];
+        for (int i = k - 1; i >= 0; i--) {
+            // largest c with C(c, i + 1) <= rank (c >= i, and c < combination[i + 1])
+            long low = i, high = i == k - 1 ? count - 1 : combination[i + 1] - 1;
+            while (low < high) {
+                long mid = low + (high - low + 1) / 2;
+                long binomial = binomial(mid, i + 1);
+                if (binomial >= 0 && binomial <= rank) low = mid;
+                else high = mid - 1;
+            }
+            combination[i] = low;
+            rank -= binomial(low, i + 1);
+        }
+        return combination;
+    }
+
+    /** Colexicographic rank of the instance with the given matrix numbers (strictly increasing) */
+    public long rank(long[] combination) {
+        long rank = 0;
+        for (int i = 0; i < combination.length; i++) {
+            if (combination[i] < 0 || combination[i] >= count || (i > 0 && combination[i] <= combination[i - 1])) {
+                throw new IllegalArgumentException("Matrix numbers must be strictly increasing and less than " + count + ".");
+            }
+            rank += binomial(combination[i], i + 1);
+        }
+        return rank;
+    }
+
+    /** All instances of k distinct matrices, each exactly once (use parallel() to enumerate rank ranges on all cores) */
+    public Stream<TropicalMatrix[]> instances(int k) {
+        return StreamSupport.stream(new InstanceSpliterator(k, 0, instanceCount(k)), false);
+    }
+
+    /** Instances of k distinct matrices with ranks in [from, to) in order */
+    public Stream<TropicalMatrix[]> instances(int k, long from, long to) {
+        long total = instanceCount(k);
+        if (from < 0 || from > to || to > total) throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for count " + total + ".");
+        return StreamSupport.stream(new InstanceSpliterator(k, from, to), false);
+    }
+
+    /**
+     * Instances share the matrix objects of positions that did not change since the previous instance
+     * (in colexicographic order, usually only the first matrix changes), so the matrices must not be modified.
+     * */
+    private final class InstanceSpliterator implements Spliterator<TropicalMatrix[]> {
+        private final int k;
+        private long rank;
+        private final long end;
+        private long[] combination;     // matrix numbers of the instance with the current rank (unranked lazily)
+        private TropicalMatrix[] current;
+        private final int[] entries = new int[n * n];
+
+        InstanceSpliterator(int k, long from, long to) {
+            this.k = k;
+            this.rank = from;
+            this.end = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super TropicalMatrix[]> action) {
+            if (rank >= end) return false;
+            int changed;    // positions [0, changed) have to be decoded
+            if (combination == null) {
+                combination = unrank(rank, k);
+                current = new TropicalMatrix[k];
+                changed = k;
+            } else {
+                // successor in colex order: increment the first position that can be incremented, reset all positions before it
+                int i = 0;
+                while (i < k - 1 && combination[i] + 1 == combination[i + 1]) i++;
+                combination[i]++;
+                for (int j = 0; j < i; j++) combination[j] = j;
+                changed = i + 1;
+            }
+            for (int i = 0; i < changed; i++) {
+                decode(combination[i], entries);
+                current[i] = toMatrix(entries);
+            }
+            rank++;
+            action.accept(current.clone());
+            return true;
+        }
+
+        @Override
+        public Spliterator<TropicalMatrix[]> trySplit() {
+            if (combination != null || end - rank < 2) return null;
+            long mid = rank + (end - rank) / 2;
+            Spliterator<TropicalMatrix[]> prefix = new InstanceSpliterator(k, rank, mid);
+            rank = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - rank;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Utilities                                                          */
+    /* ------------------------------------------------------------------ */
+
+    private int value(int digit) {
+        return digit == base - 1 ? TropicalMatrix.INF : digit;
+    }
+
+    private TropicalMatrix toMatrix(int[] entries) {
+        int[][] rows = new int[n][n];
+        for (int i = 0; i < n; i++) System.arraycopy(entries, i * n, rows[i], 0, n);
+        return new TropicalMatrix(rows);
+    }
+
+    // C(m, r), or -1 if it does not fit into a long
+    static long binomial(long m, int r) {
+        if (r < 0 || r > m) return 0;
+        if (r > m - r) r = (int) (m - r);
+        long result = 1;
+        for (int i = 1; i <= r; i++) {
+            // result * (m - r + i) / i is always an integer, divide by the gcd first to delay overflow
+            long factor = m - r + i;
+            long g = gcd(result, i);
+            long divisor = i / g;
+            try {
+                result = Math.multiplyExact(result / g, factor / divisor);
+            } catch (ArithmeticException e) {
+                return -1;
+            }
+        }
+        return result;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
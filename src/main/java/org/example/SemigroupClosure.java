@@ -0,0 +1,375 @@
+package org.example;
+
+import org.example.Matrix.MatrixSet;
+import org.example.Matrix.TropicalMatrix;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Semi-naive (worklist) closure of a set of tropical matrices under multiplication, starting from the identity.
+ * Only the matrices that were newly discovered in the last generation (the "delta") are multiplied by the generators,
+ * and every product is checked against a single set of all matrices found so far.
+ * The closure is complete exactly when a generation does not discover any new matrix.
+ * Since MatrixSet assigns ids in insertion order, every generation is a contiguous id range, so the worklist is just a cursor.
+ * <p>
+ * If a ForkJoinPool is given, the frontier is expanded in parallel: chunks of the frontier are multiplied by the generators
+ * and looked up in the (then read-only) set by all workers, and only the products that were not found are inserted afterwards,
+ * by a single thread and in the same order as the sequential expansion. Hence ids, results and the set itself are identical
+ * to the sequential mode.
+ * <p>
+ * With enableCheckpoints(), the state (products, frontier, generation and maxValue) is written to a file periodically,
+ * and resume() continues from such a file with identical results. Since the products are stored append-only (see MatrixSet.snapshot()),
+ * taking a checkpoint does not copy anything; the file is written by a background thread (shared by all closures) while the expansion continues.
+ * */
+public class SemigroupClosure {
+    public static final int NO_BOUND = Integer.MAX_VALUE;
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;   // number of expanded matrices between two clock reads
+    private static final int PARALLEL_CHUNK_ENTRIES = 1 << 22;  // max. number of entries in the product buffer of a parallel chunk
+    private static final int PARALLEL_THRESHOLD = 64;           // max. number of matrices expanded by one fork-join leaf task
+    private static final String ENGINE = "SemigroupClosure";   // engine name in the flight recorder events
+
+    // writes the checkpoints of all closures (one daemon thread, so closures that are created per decision do not leak threads)
+    private static final ExecutorService CHECKPOINT_WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "closure-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public enum Status {
+        SATURATED,          // no new products -> the instance is bounded
+        TIMED_OUT,          // deadline reached before saturation (presumed unbounded)
+        BOUND_EXCEEDED,     // some product has a finite entry greater than the bound
+        UNBOUNDED           // some product has powers whose entries grow without bound (certain, see FroidurePin.unboundednessWitness())
+    }
+
+    /**
+     * maxValue is the maximum finite entry of all products found (the exact bound if the status is SATURATED),
+     * size is the number of distinct products (including the identity), generations is the number of fully expanded generations.
+     * */
+    public record Result(Status status, int maxValue, int size, int generations) {
+        public boolean bounded() {
+            return status == Status.SATURATED;
+        }
+    }
+
+    private final TropicalMatrix[] generators;
+    private final int n;
+    private final ForkJoinPool pool;    // null -> sequential expansion
+    private final MatrixSet seen;       // all products found so far (-> fullSet)
+    private int cursor;                 // next id to expand
+    private int frontierEnd;            // ids [cursor, frontierEnd) are the rest of the current generation (-> partialSet)
+    private int generation;
+    private int maxValue;
+    private boolean saturated;          // the last generation did not discover any new matrix
+
+    private final LongAdder multiplications = new LongAdder();     // updated by all workers of the pool
+    private final LongAdder duplicates = new LongAdder();         // multiplications that gave a known product
+    private final long startNanos = System.nanoTime();
+    private ClosureListener listener;
+    private FlightRecorderEvents.GenerationEvent generationEvent;     // null unless the event is enabled (see FlightRecorderEvents)
+    private FlightRecorderEvents.ProductBatchEvent batchEvent;
+
+    private Path checkpointFile;                            // null -> no checkpoints
+    private long checkpointIntervalMillis;
+    private long nextCheckpointMillis = Long.MAX_VALUE;
+    private Future<?> pendingCheckpoint;
+
+    public SemigroupClosure(TropicalMatrix[] generators) {
+        this(generators, null);
+    }
+
+    /** Expands the frontier on the given pool (sequentially if pool is null) */
+    public SemigroupClosure(TropicalMatrix[] generators, ForkJoinPool pool) {
+        if (generators == null || generators.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        this.generators = generators;
+        this.n = generators[0].size();
+        this.pool = pool;
+        this.seen = new MatrixSet(n);
+        seen.add(new TropicalMatrix(n));
+        this.frontierEnd = 1;
+    }
+
+    // continues from a checkpoint
+    private SemigroupClosure(ClosureCheckpoint.State state, ForkJoinPool pool) {
+        this.generators = state.generators();
+        this.n = generators[0].size();
+        this.pool = pool;
+        this.seen = new MatrixSet(state.products());
+        this.cursor = state.cursor();
+        this.frontierEnd = state.frontierEnd();
+        this.generation = state.generation();
+        this.maxValue = state.maxValue();
+    }
+
+    /**
+     * Closure of the given generators, continued from a checkpoint written by a closure of the same generators
+     * (sequentially if pool is null, the result does not depend on the mode of either closure).
+     * Checkpoints are not enabled automatically.
+     * */
+    public static SemigroupClosure resume(Path checkpoint, TropicalMatrix[] generators, ForkJoinPool pool) throws IOException {
+        if (generators == null || generators.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        return new SemigroupClosure(ClosureCheckpoint.read(checkpoint, generators), pool);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Expansion                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Expands generations until the closure saturates, the deadline (System.currentTimeMillis()) is reached,
+     * or a product has an entry greater than bound (use NO_BOUND and NO_DEADLINE to disable either).
+     * After TIMED_OUT, run() may be called again to continue the computation; after SATURATED or BOUND_EXCEEDED,
+     * it returns the same result again (BOUND_EXCEEDED if some product found so far exceeds the given bound).
+     * */
+    public Result run(long deadlineMillis, int bound) {
+        if (maxValue > bound || saturated) {
+            Result result = result(maxValue > bound ? Status.BOUND_EXCEEDED : Status.SATURATED);
+            if (listener != null) listener.onFinish(statistics(), result);
+            return result;
+        }
+        if (cursor < frontierEnd) generationEvent = FlightRecorderEvents.beginGeneration(ENGINE, generation, frontierEnd - cursor);
+        Result result = pool == null ? runSequential(deadlineMillis, bound) : runParallel(deadlineMillis, bound);
+        FlightRecorderEvents.endBatch(batchEvent, cursor, multiplications.sum(), duplicates.sum());
+        FlightRecorderEvents.endGeneration(generationEvent, seen.size(), maxValue);
+        batchEvent = null;
+        generationEvent = null;
+        if (listener != null) listener.onFinish(statistics(), result);
+        return result;
+    }
+
+    private Result runSequential(long deadlineMillis, int bound) {
+        int width = n * n;
+        int[] products = new int[generators.length * width];
+        boolean[] isNew = new boolean[generators.length];
+
+        for (int expanded = 0; ; expanded++) {
+            if (cursor == frontierEnd && !nextGeneration()) return result(Status.SATURATED);
+            if (expanded % DEADLINE_CHECK_INTERVAL == 0) {
+                nextBatch();
+                long now = System.currentTimeMillis();
+                if (now >= deadlineMillis) return result(Status.TIMED_OUT);
+                if (now >= nextCheckpointMillis) checkpointAsync(now);
+            }
+
+            for (int i = 0; i < generators.length; i++) {
+                seen.multiply(cursor, generators[i], products, i * width);
+            }
+            cursor++;
+            int firstNew = seen.size();
+            int added = seen.addAll(products, generators.length, isNew);
+            multiplications.add(generators.length);
+            duplicates.add(generators.length - added);
+            if (added == 0) continue;
+            for (int id = firstNew; id < seen.size(); id++) {
+                maxValue = Math.max(maxValue, seen.maxValue(id));
+            }
+            if (maxValue > bound) return result(Status.BOUND_EXCEEDED);
+        }
+    }
+
+    private Result runParallel(long deadlineMillis, int bound) {
+        int k = generators.length;
+        int width = n * n;
+        int chunk = Math.max(PARALLEL_THRESHOLD, PARALLEL_CHUNK_ENTRIES / (k * width));
+        int[] products = new int[chunk * k * width];
+        boolean[] known = new boolean[chunk * k];
+
+        while (true) {
+            if (cursor == frontierEnd && !nextGeneration()) return result(Status.SATURATED);
+            nextBatch();
+            long now = System.currentTimeMillis();
+            if (now >= deadlineMillis) return result(Status.TIMED_OUT);
+            if (now >= nextCheckpointMillis) checkpointAsync(now);
+
+            int count = Math.min(chunk, frontierEnd - cursor);
+            pool.invoke(new ExpandTask(cursor, 0, count, products, known));
+
+            // merge in the same order as runSequential()
+            for (int p = 0; p < count; p++) {
+                for (int i = p * k; i < (p + 1) * k; i++) {
+                    if (known[i]) continue;
+                    int id = seen.addIfAbsent(products, i * width);
+                    if (id >= 0) maxValue = Math.max(maxValue, seen.maxValue(id));
+                    else duplicates.increment();   // found earlier in the same chunk
+                }
+                if (maxValue > bound) {
+                    cursor += p + 1;
+                    return result(Status.BOUND_EXCEEDED);
+                }
+            }
+            cursor += count;
+        }
+    }
+
+    // called when the current generation is fully expanded, returns false if the new delta is empty (the closure is saturated)
+    private boolean nextGeneration() {
+        generation++;
+        if (listener != null) listener.onGeneration(statistics());
+        FlightRecorderEvents.endGeneration(generationEvent, seen.size(), maxValue);
+        generationEvent = null;
+        if (frontierEnd == seen.size()) {
+            saturated = true;
+            return false;
+        }
+        frontierEnd = seen.size();
+        generationEvent = FlightRecorderEvents.beginGeneration(ENGINE, generation, frontierEnd - cursor);
+        return true;
+    }
+
+    // called between two deadline checks
+    private void nextBatch() {
+        FlightRecorderEvents.endBatch(batchEvent, cursor, multiplications.sum(), duplicates.sum());
+        batchEvent = FlightRecorderEvents.beginBatch(ENGINE, cursor, multiplications.sum(), duplicates.sum());
+    }
+
+    /** Multiplies the frontier matrices [base + from, base + to) by all generators and marks the products that are already known */
+    private class ExpandTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int base, from, to;
+        private final int[] products;
+        private final boolean[] known;
+
+        ExpandTask(int base, int from, int to, int[] products, boolean[] known) {
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.products = products;
+            this.known = known;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ExpandTask(base, from, mid, products, known), new ExpandTask(base, mid, to, products, known));
+                return;
+            }
+            int width = n * n;
+            int found = 0;
+            for (int p = from; p < to; p++) {
+                for (int g = 0; g < generators.length; g++) {
+                    int i = p * generators.length + g;
+                    seen.multiply(base + p, generators[g], products, i * width);
+                    known[i] = seen.indexOf(products, i * width) >= 0;
+                    if (known[i]) found++;
+                }
+            }
+            multiplications.add((long) (to - from) * generators.length);
+            duplicates.add(found);
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Checkpoints                                                        */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Writes a checkpoint to the given file about every intervalMillis while run() is expanding (see resume()).
+     * A checkpoint is skipped if the previous one is still being written. Call checkpoint() to write the final state.
+     * */
+    public void enableCheckpoints(Path file, long intervalMillis) {
+        if (intervalMillis < 0) throw new IllegalArgumentException("intervalMillis must be non-negative.");
+        this.checkpointFile = file;
+        this.checkpointIntervalMillis = intervalMillis;
+        this.nextCheckpointMillis = System.currentTimeMillis() + intervalMillis;
+    }
+
+    /** Writes the current state to the checkpoint file and waits until it (and any pending checkpoint) is written */
+    public void checkpoint() throws IOException {
+        if (checkpointFile == null) throw new IllegalStateException("Checkpoints are not enabled.");
+        awaitCheckpoint();
+        ClosureCheckpoint.write(checkpointFile, state());
+    }
+
+    /** Waits until any pending checkpoint is written and deletes the checkpoint file (e.g. once the result is final) */
+    public void deleteCheckpoint() throws IOException {
+        if (checkpointFile == null) throw new IllegalStateException("Checkpoints are not enabled.");
+        awaitCheckpoint();
+        Files.deleteIfExists(checkpointFile);
+    }
+
+    // starts writing a checkpoint in the background (called between two expansions, only takes a snapshot)
+    private void checkpointAsync(long now) {
+        nextCheckpointMillis = now + checkpointIntervalMillis;
+        if (pendingCheckpoint != null && !pendingCheckpoint.isDone()) return;
+        try {
+            awaitCheckpoint();      // rethrows errors of the previous checkpoint
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ClosureCheckpoint.State state = state();
+        Path file = checkpointFile;
+        pendingCheckpoint = CHECKPOINT_WRITER.submit(() -> {
+            ClosureCheckpoint.write(file, state);
+            return null;
+        });
+    }
+
+    private void awaitCheckpoint() throws IOException {
+        if (pendingCheckpoint == null) return;
+        try {
+            pendingCheckpoint.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException("Checkpoint failed.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing a checkpoint.", e);
+        } finally {
+            pendingCheckpoint = null;
+        }
+    }
+
+    private ClosureCheckpoint.State state() {
+        return new ClosureCheckpoint.State(generators, generation, cursor, frontierEnd, maxValue, seen.snapshot());
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Sets the listener that is notified after every generation (null to disable); the frontier size is the size of the new delta.
+     * The counters are LongAdders, since the products of a parallel expansion are counted by all workers.
+     * */
+    public void setListener(ClosureListener listener) {
+        this.listener = listener;
+    }
+
+    private ClosureStatistics statistics() {
+        return new ClosureStatistics(generation, seen.size() - frontierEnd, seen.size(), multiplications.sum(), duplicates.sum(),
+                maxValue, System.nanoTime() - startNanos, seen.retainedBytes());
+    }
+
+    /** All products found so far, in order of discovery (id 0 is the identity) */
+    public MatrixSet products() {
+        return seen;
+    }
+
+    public int generation() {
+        return generation;
+    }
+
+    public int maxValue() {
+        return maxValue;
+    }
+
+    private Result result(Status status) {
+        return new Result(status, maxValue, seen.size(), generation);
+    }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import org.example.Matrix.MatrixSet;
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Exact decision procedure for boundedness, based on Leung's stabilization monoid for distance automata
+ * (see also Simon, "On semigroups of matrices over the tropical semiring").
+ * <p>
+ * Every entry is abstracted to one of 0 (weight 0), 1 (bounded positive weight), ω (unbounded weight) and ∞ (no path),
+ * ordered 0 < 1 < ω < ∞. Under this abstraction, + becomes max and min stays min, so products are (min, max) products.
+ * The stabilization E♯ of an idempotent E describes E^k for large k:
+ * E♯(i, j) = min over l of max(E(i, l), E(l, l)♯, E(l, j)), with 0♯ = 0, 1♯ = ω♯ = ω and ∞♯ = ∞,
+ * i.e. a path that loops k times at l stays bounded only if the loop has weight 0.
+ * The instance is unbounded iff an ω entry appears in the closure of the abstracted matrices under product and ♯.
+ * This closure is finite (at most 4^(n * n) elements) and usually tiny compared to the closure of the actual matrices.
+ * */
+public class StabilizationMonoid {
+    public static final int ZERO = 0;
+    public static final int ONE = 1;
+    public static final int OMEGA = 2;
+    public static final int INFINITY = 3;
+
+    private static final int DEADLINE_CHECK_INTERVAL = 64;     // number of processed elements between two clock reads
+
+    public enum Result {
+        BOUNDED,
+        UNBOUNDED,
+        TIMED_OUT
+    }
+
+    private final int n;
+    private final MatrixSet elements;   // abstracted matrices (entries ZERO ... INFINITY)
+    private int processed;              // all products among elements < processed (and their stabilizations) are known
+    private int omegaWitness = -1;      // id of an element with an ω entry
+
+    public StabilizationMonoid(TropicalMatrix[] matrices) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        this.n = matrices[0].size();
+        this.elements = new MatrixSet(n);
+
+        int[] abstraction = new int[n * n];
+        for (int i = 0; i < n * n; i++) abstraction[i] = i % (n + 1) == 0 ? ZERO : INFINITY;
+        elements.addIfAbsent(abstraction, 0);   // identity
+        for (TropicalMatrix matrix : matrices) {
+            if (matrix.size() != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    abstraction[i * n + j] = abstraction(matrix.get(i, j));
+                }
+            }
+            elements.addIfAbsent(abstraction, 0);
+        }
+    }
+
+    /** Closes the monoid until an ω entry is found (UNBOUNDED), it is complete (BOUNDED), or the deadline is reached */
+    public Result run(long deadlineMillis) {
+        int width = n * n;
+        int[] x = new int[width], y = new int[width], product = new int[width];
+
+        for (; processed < elements.size(); processed++) {
+            if (processed % DEADLINE_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadlineMillis) return Result.TIMED_OUT;
+
+            int id = processed;
+            elements.copy(id, x, 0);
+            multiply(x, x, product, n);
+            if (Arrays.equals(product, x)) {
+                stabilize(x, product, n);
+                if (add(product)) return Result.UNBOUNDED;
+            }
+            // all products with earlier elements (in both orders), products with later elements are added when those are processed
+            for (int other = 0; other <= id; other++) {
+                elements.copy(other, y, 0);
+                multiply(x, y, product, n);
+                if (add(product)) return Result.UNBOUNDED;
+                multiply(y, x, product, n);
+                if (add(product)) return Result.UNBOUNDED;
+            }
+        }
+        return Result.BOUNDED;
+    }
+
+    // inserts the matrix and returns whether it is new and contains ω
+    private boolean add(int[] abstraction) {
+        int id = elements.addIfAbsent(abstraction, 0);
+        if (id < 0 || !containsOmega(abstraction)) return false;
+        omegaWitness = id;
+        return true;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Abstract semiring                                                  */
+    /* ------------------------------------------------------------------ */
+
+    /** Abstraction of a tropical value (0 -> ZERO, positive -> ONE, infinity -> INFINITY) */
+    public static int abstraction(int value) {
+        return value == TropicalMatrix.INF ? INFINITY : value == 0 ? ZERO : ONE;
+    }
+
+    /** (min, max) product of two abstracted n x n matrices, c must not alias a or b */
+    static void multiply(int[] a, int[] b, int[] c, int n) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int min = INFINITY;
+                for (int l = 0; l < n && min > ZERO; l++) {
+                    int sum = Math.max(a[i * n + l], b[l * n + j]);
+                    if (sum < min) min = sum;
+                }
+                c[i * n + j] = min;
+            }
+        }
+    }
+
+    /** Stabilization e♯ of an idempotent abstracted n x n matrix, result must not alias e */
+    static void stabilize(int[] e, int[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int min = INFINITY;
+                for (int l = 0; l < n; l++) {
+                    int loop = e[l * n + l] == ONE ? OMEGA : e[l * n + l];
+                    int value = Math.max(Math.max(e[i * n + l], loop), e[l * n + j]);
+                    if (value < min) min = value;
+                }
+                result[i * n + j] = min;
+            }
+        }
+    }
+
+    /**
+     * Sufficient condition for unboundedness, cheap enough to be checked for every product of a closure:
+     * If the abstraction E of the matrix with the given (tropical) entries is idempotent and E♯ contains ω at (i, j),
+     * then the (i, j) entries of the powers of that matrix are finite and grow at least linearly with the exponent,
+     * because every long path from i to j has to repeat vertices whose loops all have positive weight.
+     * abstraction and scratch are buffers of length n * n.
+     * */
+    static boolean hasUnboundedPowers(int[] entries, int n, int[] abstraction, int[] scratch) {
+        boolean positiveLoop = false;   // E♯ can only contain ω if some diagonal entry is ONE
+        for (int i = 0; i < n && !positiveLoop; i++) {
+            positiveLoop = abstraction(entries[i * n + i]) == ONE;
+        }
+        if (!positiveLoop) return false;
+
+        for (int i = 0; i < n * n; i++) abstraction[i] = abstraction(entries[i]);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int min = INFINITY;
+                for (int l = 0; l < n; l++) {
+                    min = Math.min(min, Math.max(abstraction[i * n + l], abstraction[l * n + j]));
+                }
+                if (min != abstraction[i * n + j]) return false;    // not idempotent
+            }
+        }
+        stabilize(abstraction, scratch, n);
+        return containsOmega(scratch);
+    }
+
+    static boolean containsOmega(int[] abstraction) {
+        for (int entry : abstraction) {
+            if (entry == OMEGA) return true;
+        }
+        return false;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /** Number of elements found so far (including the identity) */
+    public int size() {
+        return elements.size();
+    }
+
+    /** Row-major entries (ZERO ... INFINITY) of an element with an ω entry, or null if none was found */
+    public int[] omegaWitness() {
+        if (omegaWitness < 0) return null;
+        int[] witness = new int[n * n];
+        elements.copy(omegaWitness, witness, 0);
+        return witness;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of the weighted graph of a tropical matrix (vertices 0..n-1, an edge (i, j) for every entry
+ * (i, j) that is at most maxWeight, so maxWeight = 0 gives the zero-edge subgraph and INF - 1 all finite edges).
+ * Computed with an iterative version of Tarjan's algorithm in O(n^2) (the matrix is dense), without recursion,
+ * so it works for graphs with thousands of vertices.
+ * */
+public final class StronglyConnectedComponents {
+    private final int n;
+    private final int[] component;      // component id of every vertex, ids are in reverse topological order
+    private final boolean[] cyclic;     // component contains a cycle, i.e. more than one vertex or a self-loop
+    private final int count;
+
+    public StronglyConnectedComponents(TropicalMatrix matrix, int maxWeight) {
+        this.n = matrix.size();
+        this.component = new int[n];
+
+        int[] index = new int[n];           // discovery index + 1, 0 = not visited
+        int[] low = new int[n];
+        int[] next = new int[n];            // next neighbour to look at, for every vertex on the call stack
+        int[] callStack = new int[n];
+        int[] stack = new int[n];           // Tarjan's stack of vertices without a component yet
+        boolean[] onStack = new boolean[n];
+        boolean[] cyclicComponents = new boolean[n];
+        int visited = 0, stackSize = 0, components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != 0) continue;
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = ++visited;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                int w = next[v];
+                while (w < n && matrix.get(v, w) > maxWeight) w++;
+                if (w < n) {
+                    next[v] = w + 1;
+                    if (index[w] == 0) {
+                        index[w] = low[w] = ++visited;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int size = 0, u;
+                    do {
+                        u = stack[--stackSize];
+                        onStack[u] = false;
+                        component[u] = components;
+                        size++;
+                    } while (u != v);
+                    cyclicComponents[components] = size > 1 || matrix.get(v, v) <= maxWeight;
+                    components++;
+                }
+            }
+        }
+        this.count = components;
+        this.cyclic = Arrays.copyOf(cyclicComponents, components);
+    }
+
+    public int size() { return n; }
+
+    /** Number of components */
+    public int count() { return count; }
+
+    /** Component id (in 0..count-1) of vertex v; if there is a path from u to v, then component(u) >= component(v) */
+    public int component(int v) { return component[v]; }
+
+    /** Whether the component contains a cycle (of length at least 1), i.e. whether its vertices can reach themselves */
+    public boolean isCyclic(int component) { return cyclic[component]; }
+}
@@ -0,0 +1,250 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exhaustive sweep over all instances of k distinct n x n matrices with entries in {0, ..., maxValue, infinity},
+ * distributed over several worker processes (see SweepWorker).
+ * <p>
+ * The rank space of MatrixEnumerator.instances(k) is cut into shards of shardSize ranks. The coordinator listens on a socket,
+ * hands out one shard at a time to every connected worker and merges the SweepResult of every completed shard.
+ * If the connection to a worker breaks before its shard is completed (e.g. because the worker process crashed),
+ * the shard is put back in front of the queue and given to the next worker that asks for one.
+ * Local workers are started as separate JVMs (and restarted if they crash); more workers, also on other machines,
+ * can connect at any time with "SweepWorker host port" if the coordinator listens on a reachable address.
+ * */
+public class SweepCoordinator {
+    private static final long POLL_MILLIS = 100;        // how often idle connections check whether the sweep is complete
+    private static final int MAX_RESTARTS_PER_WORKER = 3;
+
+    private record Shard(int id, long from, long to) {
+    }
+
+    private final int n;
+    private final int k;
+    private final int maxValue;
+    private final double timeoutSeconds;
+    private final long total;           // number of instances
+
+    private final LinkedBlockingDeque<Shard> pending = new LinkedBlockingDeque<>();
+    private final boolean[] completed;  // guarded by this
+    private final CountDownLatch remaining;
+    private final AtomicReference<SweepResult> result = new AtomicReference<>(SweepResult.EMPTY);
+    private final AtomicInteger reissued = new AtomicInteger();
+    private final AtomicInteger aliveWorkers = new AtomicInteger();     // local workers that are running or being restarted
+    private final AtomicInteger connections = new AtomicInteger();      // workers (local or remote) currently connected
+    private final AtomicReference<IOException> workerFailure = new AtomicReference<>();   // why the last local worker was given up
+    private volatile boolean stopped;   // run() has returned, no more restarts
+
+    public SweepCoordinator(int n, int k, int maxValue, double timeoutSeconds, long shardSize) {
+        if (shardSize < 1) throw new IllegalArgumentException("shardSize must be at least 1.");
+        this.n = n;
+        this.k = k;
+        this.maxValue = maxValue;
+        this.timeoutSeconds = timeoutSeconds;
+        this.total = new MatrixEnumerator(n, maxValue).instanceCount(k);
+
+        long shards = (total + shardSize - 1) / shardSize;
+        if (shards > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many shards (" + shards + "), increase shardSize.");
+        for (int id = 0; id < shards; id++) {
+            pending.add(new Shard(id, id * shardSize, Math.min(total, (id + 1) * shardSize)));
+        }
+        this.completed = new boolean[(int) shards];
+        this.remaining = new CountDownLatch((int) shards);
+    }
+
+    /** Arguments: n k maxValue localWorkers [timeoutSeconds [shardSize [port]]] */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) throw new IllegalArgumentException("Usage: SweepCoordinator n k maxValue localWorkers [timeoutSeconds [shardSize [port]]]");
+        SweepCoordinator coordinator = new SweepCoordinator(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                args.length > 4 ? Double.parseDouble(args[4]) : 0.1, args.length > 5 ? Long.parseLong(args[5]) : 10_000);
+        int port = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+        InetSocketAddress address = port == 0 ? new InetSocketAddress(InetAddress.getLoopbackAddress(), 0) : new InetSocketAddress(port);
+
+        SweepResult result = coordinator.run(address, Integer.parseInt(args[3]));
+        MatrixEnumerator enumerator = new MatrixEnumerator(coordinator.n, coordinator.maxValue);
+        System.out.println("checked " + result.checked() + " instances in " + result.shards() + " shards (" + coordinator.reissued() + " reissued)");
+        System.out.println("isomorphism classes: " + (result.checked() - result.skipped()) + " (" + result.skipped() + " instances skipped)");
+        System.out.println("bounded: " + result.bounded() + ", proven unbounded: " + result.provenUnbounded() + ", timed out: " + result.timedOut());
+        System.out.println("maxBounded == " + result.maxBounded() + "; minUnbounded == " + result.minUnbounded());
+        if (result.maxBoundedRank() >= 0) {
+            System.out.println("\nExample for maxBounded (rank " + result.maxBoundedRank() + "):\n");
+            for (long index : enumerator.unrank(result.maxBoundedRank(), coordinator.k)) {
+                System.out.println(enumerator.matrix(index));
+            }
+        }
+    }
+
+    /**
+     * Listens on the given address, starts localWorkers worker JVMs (with the classpath of this JVM) connecting to it,
+     * and returns the merged result once every shard is completed.
+     * If localWorkers > 0 and all local workers have exited for good (after MAX_RESTARTS_PER_WORKER restarts each)
+     * while no other worker is connected, this throws an IOException (whose cause is the last worker failure)
+     * instead of waiting forever.
+     * */
+    public SweepResult run(InetSocketAddress address, int localWorkers) throws IOException, InterruptedException {
+        List<Process> processes = new ArrayList<>();
+        aliveWorkers.set(localWorkers);
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(address);
+            Thread acceptor = new Thread(() -> accept(server), "sweep-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            String host = server.getInetAddress().isAnyLocalAddress() ? InetAddress.getLoopbackAddress().getHostAddress() : server.getInetAddress().getHostAddress();
+            for (int i = 0; i < localWorkers; i++) {
+                startWorker(host, server.getLocalPort(), MAX_RESTARTS_PER_WORKER, processes);
+            }
+
+            while (!remaining.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (localWorkers > 0 && aliveWorkers.get() == 0 && connections.get() == 0) {
+                    throw new IOException("All local sweep workers have exited and no other worker is connected ("
+                            + remaining.getCount() + " shards left).", workerFailure.get());
+                }
+            }
+        } finally {
+            stopped = true;
+            synchronized (processes) {
+                for (Process process : processes) {
+                    if (!process.waitFor(POLL_MILLIS * 10, TimeUnit.MILLISECONDS)) process.destroy();
+                }
+            }
+        }
+        return result.get();
+    }
+
+    // starts a worker JVM and restarts it (at most restarts times) if it exits abnormally before the sweep is complete,
+    // the worker is given up (see aliveWorkers) if it exits otherwise or cannot be restarted
+    private void startWorker(String host, int port, int restarts, List<Process> processes) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path")));
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) command.addAll(List.of("--add-modules", "jdk.incubator.vector"));
+        command.addAll(List.of(SweepWorker.class.getName(), host, String.valueOf(port)));
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        synchronized (processes) {
+            processes.add(process);
+        }
+        process.onExit().thenAccept(exited -> {
+            if (stopped || remaining.getCount() == 0) return;
+            if (exited.exitValue() == 0 || restarts == 0) {
+                workerFailure.set(new IOException("Sweep worker exited with code " + exited.exitValue()
+                        + (restarts == 0 ? " after " + MAX_RESTARTS_PER_WORKER + " restarts." : ".")));
+                aliveWorkers.decrementAndGet();
+                return;
+            }
+            try {
+                startWorker(host, port, restarts - 1, processes);
+            } catch (IOException e) {
+                workerFailure.set(new IOException("Could not restart sweep worker.", e));
+                aliveWorkers.decrementAndGet();
+            }
+        });
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> serve(socket), "sweep-connection-" + socket.getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;     // server socket closed
+            }
+        }
+    }
+
+    // serves one worker until the sweep is complete or the connection breaks
+    private void serve(Socket socket) {
+        Shard shard = null;
+        connections.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            if (!"HELLO".equals(in.readLine())) return;
+            out.println("CONFIG " + n + " " + k + " " + maxValue + " " + timeoutSeconds);
+
+            while (true) {
+                shard = null;
+                while (shard == null && remaining.getCount() > 0) {
+                    shard = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (shard == null) {
+                    out.println("DONE");
+                    out.flush();
+                    return;
+                }
+                out.println("SHARD " + shard.id + " " + shard.from + " " + shard.to);
+                out.flush();
+
+                String line = in.readLine();
+                if (line == null) throw new IOException("Connection to worker lost.");
+                String[] fields = line.split(" ");
+                if (!fields[0].equals("RESULT") || Integer.parseInt(fields[1]) != shard.id) throw new IOException("Unexpected message: " + line);
+                complete(shard, SweepResult.parse(fields, 2));
+            }
+        } catch (IOException | RuntimeException e) {
+            if (shard != null && !isCompleted(shard)) {
+                reissued.incrementAndGet();
+                pending.addFirst(shard);
+            }
+        } catch (InterruptedException e) {
+            if (shard != null) pending.addFirst(shard);
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.decrementAndGet();
+        }
+    }
+
+    private void complete(Shard shard, SweepResult shardResult) {
+        synchronized (this) {
+            if (completed[shard.id]) return;
+            completed[shard.id] = true;
+        }
+        result.accumulateAndGet(shardResult, SweepResult::merge);
+        remaining.countDown();
+    }
+
+    private synchronized boolean isCompleted(Shard shard) {
+        return completed[shard.id];
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors (may be called while running)                            */
+    /* ------------------------------------------------------------------ */
+
+    /** Number of instances of the whole sweep */
+    public long total() {
+        return total;
+    }
+
+    /** Merged result of all shards completed so far */
+    public SweepResult result() {
+        return result.get();
+    }
+
+    /** Number of shards that were given to another worker because the connection to their first worker broke */
+    public int reissued() {
+        return reissued.get();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+/**
+ * (Partial) result of an exhaustive sweep over a range of instance ranks (see MatrixEnumerator):
+ * counts of the classified instances, the maximum value of all bounded instances (maxBounded, at rank maxBoundedRank)
+ * and the minimum "max value" of all instances that timed out (minUnbounded, at rank minUnboundedRank).
+ * checked counts all instances of the range, of which skipped were not decided because they are isomorphic to a decided one
+ * (see InstanceCanonicalizer.isCanonical()), so bounded + provenUnbounded + timedOut == checked - skipped is the number of classes.
+ * Ranks are -1 as long as no such instance was found. Results of disjoint ranges are combined with merge().
+ * */
+public record SweepResult(int shards, long checked, long skipped, long bounded, long provenUnbounded, long timedOut,
+                          int maxBounded, long maxBoundedRank, int minUnbounded, long minUnboundedRank) {
+
+    public static final SweepResult EMPTY = new SweepResult(0, 0, 0, 0, 0, 0, 0, -1, Integer.MAX_VALUE, -1);
+
+    /** Adds an instance that is not decided, because it is isomorphic to another (canonical) instance (counts as part of the current shard) */
+    public SweepResult skip() {
+        return new SweepResult(shards, checked + 1, skipped + 1, bounded, provenUnbounded, timedOut,
+                maxBounded, maxBoundedRank, minUnbounded, minUnboundedRank);
+    }
+
+    /** Adds the result of the instance with the given rank (counts as part of the current shard) */
+    public SweepResult with(long rank, SemigroupClosure.Result result) {
+        int max = result.maxValue();
+        if (result.bounded()) {
+            boolean better = max > maxBounded || maxBoundedRank < 0;
+            return new SweepResult(shards, checked + 1, skipped, bounded + 1, provenUnbounded, timedOut,
+                    better ? max : maxBounded, better ? rank : maxBoundedRank, minUnbounded, minUnboundedRank);
+        }
+        if (result.status() == SemigroupClosure.Status.UNBOUNDED) {
+            return new SweepResult(shards, checked + 1, skipped, bounded, provenUnbounded + 1, timedOut,
+                    maxBounded, maxBoundedRank, minUnbounded, minUnboundedRank);
+        }
+        boolean better = max < minUnbounded;
+        return new SweepResult(shards, checked + 1, skipped, bounded, provenUnbounded, timedOut + 1,
+                maxBounded, maxBoundedRank, better ? max : minUnbounded, better ? rank : minUnboundedRank);
+    }
+
+    /** Combined result of two disjoint ranges (ties are resolved in favor of the smaller rank, so the result does not depend on the order of merging) */
+    public SweepResult merge(SweepResult other) {
+        boolean otherMax = other.maxBoundedRank >= 0 && (maxBoundedRank < 0 || other.maxBounded > maxBounded
+                || (other.maxBounded == maxBounded && other.maxBoundedRank < maxBoundedRank));
+        boolean otherMin = other.minUnboundedRank >= 0 && (minUnboundedRank < 0 || other.minUnbounded < minUnbounded
+                || (other.minUnbounded == minUnbounded && other.minUnboundedRank < minUnboundedRank));
+        return new SweepResult(shards + other.shards, checked + other.checked, skipped + other.skipped, bounded + other.bounded,
+                provenUnbounded + other.provenUnbounded, timedOut + other.timedOut,
+                otherMax ? other.maxBounded : maxBounded, otherMax ? other.maxBoundedRank : maxBoundedRank,
+                otherMin ? other.minUnbounded : minUnbounded, otherMin ? other.minUnboundedRank : minUnboundedRank);
+    }
+
+    /** Space-separated fields, as sent from workers to the coordinator (see parse()) */
+    public String format() {
+        return shards + " " + checked + " " + skipped + " " + bounded + " " + provenUnbounded + " " + timedOut
+                + " " + maxBounded + " " + maxBoundedRank + " " + minUnbounded + " " + minUnboundedRank;
+    }
+
+    public static SweepResult parse(String[] fields, int offset) {
+        if (fields.length - offset != 10) throw new IllegalArgumentException("Invalid sweep result.");
+        return new SweepResult(Integer.parseInt(fields[offset]), Long.parseLong(fields[offset + 1]), Long.parseLong(fields[offset + 2]),
+                Long.parseLong(fields[offset + 3]), Long.parseLong(fields[offset + 4]), Long.parseLong(fields[offset + 5]),
+                Integer.parseInt(fields[offset + 6]), Long.parseLong(fields[offset + 7]),
+                Integer.parseInt(fields[offset + 8]), Long.parseLong(fields[offset + 9]));
+    }
+}
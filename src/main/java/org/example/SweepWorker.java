@@ -0,0 +1,85 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.example.DecisionAlgorithms.semiDecideResult;
+
+/**
+ * Worker process of an exhaustive sweep (see SweepCoordinator): connects to the coordinator, classifies every canonical instance
+ * of each shard it is given and reports one SweepResult per shard.
+ * <p>
+ * Protocol (one line per message, fields separated by spaces):
+ * <pre>
+ * worker      -> coordinator: HELLO
+ * coordinator -> worker:      CONFIG n k maxValue timeoutSeconds
+ * coordinator -> worker:      SHARD id from to     (instance ranks [from, to))
+ * worker      -> coordinator: RESULT id (fields of SweepResult.format())
+ * coordinator -> worker:      DONE
+ * </pre>
+ * Workers are stateless between shards, so they can run on any machine that can reach the coordinator.
+ * */
+public class SweepWorker {
+
+    /** Arguments: host port */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) throw new IllegalArgumentException("Usage: SweepWorker host port");
+        run(args[0], Integer.parseInt(args[1]));
+    }
+
+    public static void run(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            out.println("HELLO");
+            out.flush();
+
+            String[] config = fields(in.readLine(), "CONFIG", 5);
+            MatrixEnumerator enumerator = new MatrixEnumerator(Integer.parseInt(config[1]), Integer.parseInt(config[3]));
+            int k = Integer.parseInt(config[2]);
+            double timeoutSeconds = Double.parseDouble(config[4]);
+
+            while (true) {
+                String line = in.readLine();
+                if (line == null || line.equals("DONE")) return;
+                String[] shard = fields(line, "SHARD", 4);
+                long from = Long.parseLong(shard[2]), to = Long.parseLong(shard[3]);
+                SweepResult result = sweep(enumerator, k, from, to, timeoutSeconds);
+                out.println("RESULT " + shard[1] + " " + result.format());
+                out.flush();
+                if (out.checkError()) throw new IOException("Connection to coordinator lost.");
+            }
+        }
+    }
+
+    /**
+     * Classifies all instances with ranks in [from, to) (counts as one shard).
+     * Only the canonical instance of every isomorphism class is decided (see InstanceCanonicalizer.isCanonical()),
+     * all others are counted as skipped, so every class is decided exactly once in a sweep over all ranks.
+     * */
+    public static SweepResult sweep(MatrixEnumerator enumerator, int k, long from, long to, double timeoutSeconds) {
+        SweepResult result = new SweepResult(1, 0, 0, 0, 0, 0, 0, -1, Integer.MAX_VALUE, -1);
+        long rank = from;
+        for (var iterator = enumerator.instances(k, from, to).iterator(); iterator.hasNext(); rank++) {
+            TropicalMatrix[] instance = iterator.next();
+            result = InstanceCanonicalizer.isCanonical(instance)
+                    ? result.with(rank, semiDecideResult(instance, timeoutSeconds))
+                    : result.skip();
+        }
+        return result;
+    }
+
+    private static String[] fields(String line, String type, int count) throws IOException {
+        if (line == null) throw new IOException("Connection to coordinator lost.");
+        String[] fields = line.split(" ");
+        if (!fields[0].equals(type) || fields.length != count) throw new IOException("Unexpected message: " + line);
+        return fields;
+    }
+}
@@ -3,44 +3,54 @@ package org.example;
 import org.example.Matrix.TropicalMatrix;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
 
 public class TropicalMatrixGenerator {
 
     // Get a random instance of the problem with the specified number of matrices, dimension of the matrices and maximum value for the entries
     public static TropicalMatrix[] getRandomMatrices(int numberOfMatrices, int dimension, int maxValue) {
-        // use set to avoid duplicates
-        Set<TropicalMatrix> matrices = new HashSet<>(numberOfMatrices);
+        return getRandomMatrices(numberOfMatrices, dimension, maxValue, new Random());
+    }
+
+    // Same as above, but draws all entries from the given generator (the same seed always gives the same instance)
+    public static TropicalMatrix[] getRandomMatrices(int numberOfMatrices, int dimension, int maxValue, RandomGenerator random) {
+        // use set to avoid duplicates (LinkedHashSet, so that the order of the matrices only depends on the generator)
+        Set<TropicalMatrix> matrices = new LinkedHashSet<>(numberOfMatrices);
         while (matrices.size() < numberOfMatrices) {
-            matrices.add(TropicalMatrix.random(dimension, maxValue, 0.333, 0.333));
+            matrices.add(TropicalMatrix.random(dimension, maxValue, 0.333, 0.333, random));
         }
         return matrices.toArray(new TropicalMatrix[numberOfMatrices]);
     }
 
     // Get a list of all the matrices with the specified dimension and maximum value for the entries
+    // (only for small cases, use getAllMatricesLazily() or MatrixEnumerator to enumerate more matrices in constant memory)
     public static List<TropicalMatrix> getAllMatrices(int dimension, int maxValue) {
-        final int[] VALUES = new int[maxValue + 2];
-        for (int i = 0; i < VALUES.length; i++) {
-            VALUES[i] = i;
-        }
-        VALUES[VALUES.length - 1] = Integer.MAX_VALUE;
-
-        final int MATRIX_COUNT = (int) Math.pow(VALUES.length, dimension * dimension);
+        MatrixEnumerator enumerator = new MatrixEnumerator(dimension, maxValue);
+        if (enumerator.count() > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Too many matrices for a list (" + enumerator.count() + ").");
+        List<TropicalMatrix> all = new ArrayList<>((int) enumerator.count());
+        enumerator.matrices().forEach(all::add);
+        return all;
+    }
 
-        List<TropicalMatrix> all = new ArrayList<>(MATRIX_COUNT);
+    // Stream of all the matrices with the specified dimension and maximum value for the entries, in the same order as getAllMatrices()
+    public static Stream<TropicalMatrix> getAllMatricesLazily(int dimension, int maxValue) {
+        return new MatrixEnumerator(dimension, maxValue).matrices();
+    }
 
-        for (int i = 0; i < MATRIX_COUNT; i++) {
-            int code = i;
-            int[][] matrix = new int[dimension][dimension];
+    // Stream of all instances of numberOfMatrices distinct matrices with the specified dimension and maximum value for the entries,
+    // every instance exactly once (up to the order of its matrices)
+    public static Stream<TropicalMatrix[]> getAllInstances(int numberOfMatrices, int dimension, int maxValue) {
+        return new MatrixEnumerator(dimension, maxValue).instances(numberOfMatrices);
+    }
 
-            for (int j = 0; j < dimension * dimension; j++) {
-                matrix[j / dimension][j % dimension] = VALUES[code % VALUES.length];
-                code /= VALUES.length;
-            }
-            all.add(new TropicalMatrix(matrix));
-        }
-        return all;
+    // Same as above, but only one instance of every isomorphism class (under vertex permutation, see InstanceCanonicalizer),
+    // so that exhaustive searches decide every class only once
+    public static Stream<TropicalMatrix[]> getAllCanonicalInstances(int numberOfMatrices, int dimension, int maxValue) {
+        return getAllInstances(numberOfMatrices, dimension, maxValue).filter(InstanceCanonicalizer::isCanonical);
     }
 }
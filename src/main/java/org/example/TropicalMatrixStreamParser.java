@@ -0,0 +1,209 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Streaming version of TropicalMatrixParser for large text files (e.g. dumps of console output of older runs).
+ * <p>
+ * The input has the same format: matrices are blocks of lines separated by blank lines, every line holds the entries of one row,
+ * separated by spaces or tabs, and "-" stands for infinity. Every matricesPerInstance consecutive matrices form one instance,
+ * and instances are returned one at a time (as an Iterator or through forEach()), so the input is never held in memory.
+ * The input is tokenized by hand from a fixed-size buffer (no regular expressions, no strings per line or token);
+ * a ReadableByteChannel is read as ASCII.
+ * */
+public final class TropicalMatrixStreamParser implements Iterator<TropicalMatrix[]>, Closeable {
+    public static final int INF = TropicalMatrix.INF;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;                // exactly one of reader and channel is not null
+    private final ReadableByteChannel channel;
+    private final char[] chars;
+    private final ByteBuffer bytes;
+    private int position;
+    private int limit;
+
+    private final int matricesPerInstance;
+    private int line = 1;
+    private int[] entries = new int[64];        // entries of the current block, row-major
+    private TropicalMatrix[] next;              // next instance, if it was already parsed by hasNext()
+
+    public TropicalMatrixStreamParser(Reader reader, int matricesPerInstance) {
+        this(reader, null, matricesPerInstance);
+    }
+
+    public TropicalMatrixStreamParser(ReadableByteChannel channel, int matricesPerInstance) {
+        this(null, channel, matricesPerInstance);
+    }
+
+    private TropicalMatrixStreamParser(Reader reader, ReadableByteChannel channel, int matricesPerInstance) {
+        if (matricesPerInstance < 1) throw new IllegalArgumentException("matricesPerInstance must be at least 1.");
+        this.reader = reader;
+        this.channel = channel;
+        this.chars = reader == null ? null : new char[BUFFER_SIZE];
+        this.bytes = channel == null ? null : ByteBuffer.allocate(BUFFER_SIZE);
+        this.matricesPerInstance = matricesPerInstance;
+    }
+
+    /** Parses all instances of the input and passes them to action, in order */
+    public static void forEach(Reader reader, int matricesPerInstance, Consumer<TropicalMatrix[]> action) {
+        new TropicalMatrixStreamParser(reader, matricesPerInstance).forEachRemaining(action);
+    }
+
+    /** Parses all instances of the input and passes them to action, in order */
+    public static void forEach(ReadableByteChannel channel, int matricesPerInstance, Consumer<TropicalMatrix[]> action) {
+        new TropicalMatrixStreamParser(channel, matricesPerInstance).forEachRemaining(action);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Iterator                                                           */
+    /* ------------------------------------------------------------------ */
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = parseInstance();
+        return next != null;
+    }
+
+    @Override
+    public TropicalMatrix[] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        TropicalMatrix[] instance = next;
+        next = null;
+        return instance;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) reader.close();
+        else channel.close();
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Parsing                                                            */
+    /* ------------------------------------------------------------------ */
+
+    // next instance, or null at the end of the input
+    private TropicalMatrix[] parseInstance() {
+        TropicalMatrix[] instance = new TropicalMatrix[matricesPerInstance];
+        for (int m = 0; m < matricesPerInstance; m++) {
+            instance[m] = parseMatrix();
+            if (instance[m] == null) {
+                if (m == 0) return null;
+                throw new IllegalArgumentException("Incomplete instance at the end of the input: " + m + " of " + matricesPerInstance + " matrices.");
+            }
+            if (instance[m].size() != instance[0].size()) {
+                throw error("Matrix dimensions differ within an instance");
+            }
+        }
+        return instance;
+    }
+
+    // next block of non-blank lines as a matrix, or null if there are only blank lines left
+    private TropicalMatrix parseMatrix() {
+        int n = -1, rows = 0, count = 0;
+        while (true) {
+            int tokens = 0;
+            int c = read();
+            while (c != '\n' && c != -1) {
+                if (isSpace(c)) {
+                    c = read();
+                } else if (c == '-') {
+                    c = read();
+                    if (isDigit(c)) throw error("Entries must be non-negative");
+                    if (!isSpace(c) && c != '\n' && c != -1) throw unexpected(c);
+                    count = add(count, INF);
+                    tokens++;
+                } else if (isDigit(c)) {
+                    long value = 0;
+                    while (isDigit(c)) {
+                        value = value * 10 + (c - '0');
+                        if (value >= INF) throw error("Entry is too large");
+                        c = read();
+                    }
+                    if (!isSpace(c) && c != '\n' && c != -1) throw unexpected(c);
+                    count = add(count, (int) value);
+                    tokens++;
+                } else {
+                    throw unexpected(c);
+                }
+            }
+
+            if (tokens > 0) {
+                if (n < 0) n = tokens;
+                else if (tokens != n) throw error("Matrix is not square: row of length " + tokens + " in a matrix with " + n + " columns");
+                rows++;
+            }
+            if (c == '\n') line++;
+            if (tokens == 0 && rows > 0) break;     // blank line after a block
+            if (c == -1) {
+                if (rows == 0) return null;
+                break;
+            }
+        }
+
+        if (rows != n) throw error("Matrix is not square: " + rows + "×" + n);
+        int[][] data = new int[n][n];
+        for (int i = 0; i < n; i++) System.arraycopy(entries, i * n, data[i], 0, n);
+        return new TropicalMatrix(data);
+    }
+
+    private int add(int count, int value) {
+        if (count == entries.length) entries = Arrays.copyOf(entries, 2 * count);
+        entries[count] = value;
+        return count + 1;
+    }
+
+    // next character (bytes of a channel are read as ASCII), -1 at the end of the input
+    private int read() {
+        if (position == limit && !fill()) return -1;
+        return reader != null ? chars[position++] : bytes.get(position++) & 0xFF;
+    }
+
+    private boolean fill() {
+        try {
+            if (reader != null) {
+                limit = reader.read(chars, 0, chars.length);
+            } else {
+                bytes.clear();
+                limit = channel.read(bytes);
+                while (limit == 0) limit = channel.read(bytes);     // non-blocking channels may return 0
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private IllegalArgumentException unexpected(int c) {
+        return error("Unexpected character '" + (char) c + "'");
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " (line " + line + ").");
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-weight paths through the layered graph of a word over a set of tropical matrices:
+ * layer l (0 <= l <= word length) has the vertices 0..n-1, and letter l of the word connects vertex u of layer l
+ * to vertex v of layer l + 1 with an edge of weight matrices[word[l]][u][v] (if it is finite).
+ * The weight of a shortest path from start to end is entry (start, end) of the product of the word.
+ * <p>
+ * Since the graph is a DAG, all paths are computed in a single sweep over the layers (a min-plus product with the next letter,
+ * from all start vertices at once) that remembers the predecessor of every vertex, so this takes O(L * n^3) time
+ * and L * n * n ints of memory for all n^2 (start, end) pairs, without a priority queue or an object per edge.
+ * Ties are broken towards the smallest predecessor.
+ * */
+public final class WordPaths {
+    public static final int INF = TropicalMatrix.INF;
+
+    /** A shortest path: vertices has length L + 1 (vertices[l] is in layer l), weights[l] is the weight of the edge of letter l */
+    public record Path(int start, int end, int distance, int[] vertices, int[] weights) {
+    }
+
+    private final TropicalMatrix[] matrices;
+    private final int[] word;
+    private final int n;
+    private final int[] distances;      // distances[start * n + end] in the last layer
+    private final int[] predecessors;   // predecessors[((l - 1) * n + start) * n + v]: vertex of layer l - 1 before v in layer l
+
+    /** word contains indices of matrices (0-based), and may be empty */
+    public WordPaths(TropicalMatrix[] matrices, int[] word) {
+        if (matrices == null || matrices.length < 1) throw new IllegalArgumentException("Matrices is null or empty.");
+        this.matrices = matrices;
+        this.word = word.clone();
+        this.n = matrices[0].size();
+        for (TropicalMatrix matrix : matrices) {
+            if (matrix.size() != n) throw new IllegalArgumentException("Matrix dimensions differ.");
+        }
+        for (int letter : word) {
+            if (letter < 0 || letter >= matrices.length) throw new IllegalArgumentException("Invalid letter " + letter + ".");
+        }
+
+        int width = n * n;
+        this.predecessors = new int[Math.multiplyExact(word.length, width)];
+        int[] current = new int[width], next = new int[width];
+        Arrays.fill(current, INF);
+        for (int s = 0; s < n; s++) current[s * n + s] = 0;
+
+        for (int l = 0; l < word.length; l++) {
+            TropicalMatrix matrix = matrices[word[l]];
+            Arrays.fill(next, INF);
+            int layer = l * width;
+            for (int s = 0; s < n; s++) {
+                int row = s * n;
+                for (int u = 0; u < n; u++) {
+                    int d = current[row + u];
+                    if (d == INF) continue;
+                    for (int v = 0; v < n; v++) {
+                        int weight = matrix.get(u, v);
+                        if (weight == INF) continue;
+                        long sum = (long) d + weight;
+                        if (sum >= INF) throw new RuntimeException("Overflow.");
+                        if (sum < next[row + v]) {
+                            next[row + v] = (int) sum;
+                            predecessors[layer + row + v] = u;
+                        }
+                    }
+                }
+            }
+            int[] swap = current;
+            current = next;
+            next = swap;
+        }
+        this.distances = current;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Accessors                                                          */
+    /* ------------------------------------------------------------------ */
+
+    public int length() {
+        return word.length;
+    }
+
+    /** Weight of a shortest path from start (layer 0) to end (last layer), INF if there is none (0 <= start, end < n) */
+    public int distance(int start, int end) {
+        checkVertex(start);
+        checkVertex(end);
+        return distances[start * n + end];
+    }
+
+    /** The product of the word (its entries are the distances) */
+    public TropicalMatrix product() {
+        int[][] data = new int[n][n];
+        for (int i = 0; i < n; i++) System.arraycopy(distances, i * n, data[i], 0, n);
+        return new TropicalMatrix(data);
+    }
+
+    /** A shortest path from start to end (0 <= start, end < n), or null if there is none */
+    public Path path(int start, int end) {
+        int distance = distance(start, end);
+        if (distance == INF) return null;
+        int length = word.length;
+        int[] vertices = new int[length + 1];
+        int[] weights = new int[length];
+        vertices[length] = end;
+        for (int l = length; l > 0; l--) {
+            vertices[l - 1] = predecessors[((l - 1) * n + start) * n + vertices[l]];
+            weights[l - 1] = matrices[word[l - 1]].get(vertices[l - 1], vertices[l]);
+        }
+        return new Path(start, end, distance, vertices, weights);
+    }
+
+    private void checkVertex(int v) {
+        if (v < 0 || v >= n) throw new IndexOutOfBoundsException("Vertex " + v + " out of bounds for size " + n + ".");
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.Matrix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Packed products (table lookups and the SWAR minimum) against TropicalMatrix.times(), with entries concentrated
+ * at the boundaries of the packed width: 0, cap() - 1, cap() (whose sums overflow to OVER) and INF.
+ * */
+class PackedMatrixSetTest {
+    private static final long SEED = 0x5EEDL;
+    private static final int PAIRS = 20_000;
+
+    @Test
+    void allPairsOfOneByOneMatrices() {
+        PackedMatrixSet set = new PackedMatrixSet(1);
+        for (int x = 0; x <= set.cap() + 1; x++) {
+            for (int y = 0; y <= set.cap() + 1; y++) {
+                int[] a = {x > set.cap() ? TropicalMatrix.INF : x};
+                int[] b = {y > set.cap() ? TropicalMatrix.INF : y};
+                assertProduct(set, a, b);
+            }
+        }
+    }
+
+    @Test
+    void randomPairsAtTheBoundaries() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int n = 1; n <= PackedMatrixSet.MAX_DIMENSION; n++) {
+            PackedMatrixSet set = new PackedMatrixSet(n);
+            for (int pair = 0; pair < PAIRS; pair++) {
+                assertProduct(set, randomEntries(set, random), randomEntries(set, random));
+            }
+        }
+    }
+
+    @Test
+    void identityIsNeutral() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int n = 1; n <= PackedMatrixSet.MAX_DIMENSION; n++) {
+            PackedMatrixSet set = new PackedMatrixSet(n);
+            int[] identity = new int[n * n];
+            for (int i = 0; i < identity.length; i++) identity[i] = i % (n + 1) == 0 ? 0 : TropicalMatrix.INF;
+            long packedIdentity = set.pack(identity, 0);
+            for (int pair = 0; pair < 100; pair++) {
+                long a = set.pack(randomEntries(set, random), 0);
+                assertEquals(a, set.multiply(a, set.rowTable(packedIdentity)));
+                assertEquals(a, set.multiply(packedIdentity, set.rowTable(a)));
+            }
+        }
+    }
+
+    // compares both packed products with the exact product, whose finite entries greater than cap() must be OVER (cap() + 1 when unpacked)
+    private static void assertProduct(PackedMatrixSet set, int[] a, int[] b) {
+        int n = set.dimension();
+        TropicalMatrix exact = matrix(a, n).times(matrix(b, n));
+        int[] expected = new int[n * n];
+        boolean overflow = false;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int entry = exact.get(i, j);
+                if (entry != TropicalMatrix.INF && entry > set.cap()) {
+                    entry = set.cap() + 1;
+                    overflow = true;
+                }
+                expected[i * n + j] = entry;
+            }
+        }
+
+        long packedA = set.pack(a, 0), packedB = set.pack(b, 0);
+        long product = set.multiply(packedA, set.rowTable(packedB));
+        assertEquals(set.multiply(packedA, packedB), product);
+        assertEquals(overflow, set.hasOverflow(product));
+        int[] actual = new int[n * n];
+        set.unpack(product, actual, 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static int[] randomEntries(PackedMatrixSet set, SplittableRandom random) {
+        int[] entries = new int[set.dimension() * set.dimension()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = switch (random.nextInt(6)) {
+                case 0 -> 0;
+                case 1 -> set.cap() - 1;
+                case 2 -> set.cap();
+                case 3 -> TropicalMatrix.INF;
+                default -> random.nextInt(set.cap() + 1);
+            };
+        }
+        return entries;
+    }
+
+    private static TropicalMatrix matrix(int[] entries, int n) {
+        int[][] data = new int[n][n];
+        for (int i = 0; i < n; i++) System.arraycopy(entries, i * n, data[i], 0, n);
+        return new TropicalMatrix(data);
+    }
+}
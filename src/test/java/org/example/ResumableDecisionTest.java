@@ -0,0 +1,83 @@
+package org.example;
+
+import org.example.Matrix.TropicalMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The resumable entry points of DecisionAlgorithms, called repeatedly with the same checkpoint file:
+ * a final result must not change when the decision is repeated, and an interrupted run must end with the uninterrupted result.
+ * */
+class ResumableDecisionTest {
+    private static final int INF = TropicalMatrix.INF;
+    private static final double TIMEOUT_SECONDS = 60;
+
+    // the powers of [[1, INF], [INF, 0]] grow, so the conjectured bound (2) is exceeded
+    private static final TropicalMatrix[] UNBOUNDED = {new TropicalMatrix(new int[][]{{1, INF}, {INF, 0}})};
+    private static final TropicalMatrix[] BOUNDED = {
+            new TropicalMatrix(new int[][]{{0, 1}, {INF, 0}}),
+            new TropicalMatrix(new int[][]{{0, INF}, {1, INF}})
+    };
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(2);
+
+    @Test
+    void decideWithBoundResumableAfterBoundExceeded(@TempDir Path directory) throws IOException {
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, POOL}) {
+            Path checkpoint = directory.resolve(pool == null ? "sequential.bin" : "parallel.bin");
+            SemigroupClosure.Result first = DecisionAlgorithms.decideWithBoundResumable(UNBOUNDED, TIMEOUT_SECONDS, pool, checkpoint, 0);
+            assertEquals(SemigroupClosure.Status.BOUND_EXCEEDED, first.status());
+            assertEquals(first, DecisionAlgorithms.decideWithBoundResumable(UNBOUNDED, TIMEOUT_SECONDS, pool, checkpoint, 0));
+            assertFalse(DecisionAlgorithms.decideWithBound(UNBOUNDED));
+        }
+    }
+
+    @Test
+    void decideWithBoundResumableAfterSaturated(@TempDir Path directory) throws IOException {
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, POOL}) {
+            Path checkpoint = directory.resolve(pool == null ? "sequential.bin" : "parallel.bin");
+            SemigroupClosure.Result first = DecisionAlgorithms.decideWithBoundResumable(BOUNDED, TIMEOUT_SECONDS, pool, checkpoint, 0);
+            assertEquals(SemigroupClosure.Status.SATURATED, first.status());
+            assertEquals(first, DecisionAlgorithms.decideWithBoundResumable(BOUNDED, TIMEOUT_SECONDS, pool, checkpoint, 0));
+            assertTrue(DecisionAlgorithms.decideWithBound(BOUNDED));
+        }
+    }
+
+    @Test
+    void semiDecideResumableAfterSaturated(@TempDir Path directory) throws IOException {
+        SemigroupClosure.Result uninterrupted = new SemigroupClosure(BOUNDED).run(SemigroupClosure.NO_DEADLINE, SemigroupClosure.NO_BOUND);
+        for (ForkJoinPool pool : new ForkJoinPool[]{null, POOL}) {
+            Path checkpoint = directory.resolve(pool == null ? "sequential.bin" : "parallel.bin");
+            assertEquals(uninterrupted, DecisionAlgorithms.semiDecideResumable(BOUNDED, TIMEOUT_SECONDS, pool, checkpoint, 0));
+            assertFalse(Files.exists(checkpoint));
+            assertEquals(uninterrupted, DecisionAlgorithms.semiDecideResumable(BOUNDED, TIMEOUT_SECONDS, pool, checkpoint, 0));
+        }
+    }
+
+    @Test
+    void resumeAfterTimeout(@TempDir Path directory) throws IOException {
+        SemigroupClosure.Result uninterrupted = new SemigroupClosure(BOUNDED).run(SemigroupClosure.NO_DEADLINE, SemigroupClosure.NO_BOUND);
+        Path checkpoint = directory.resolve("checkpoint.bin");
+        assertEquals(SemigroupClosure.Status.TIMED_OUT, DecisionAlgorithms.semiDecideResumable(BOUNDED, 0, null, checkpoint, 0).status());
+        assertTrue(Files.exists(checkpoint));
+        assertEquals(uninterrupted, DecisionAlgorithms.semiDecideResumable(BOUNDED, TIMEOUT_SECONDS, null, checkpoint, 0));
+    }
+
+    @Test
+    void runAgainAfterFinalResult() {
+        SemigroupClosure closure = new SemigroupClosure(BOUNDED);
+        SemigroupClosure.Result saturated = closure.run(SemigroupClosure.NO_DEADLINE, SemigroupClosure.NO_BOUND);
+        assertEquals(SemigroupClosure.Status.SATURATED, saturated.status());
+        assertEquals(saturated, closure.run(SemigroupClosure.NO_DEADLINE, SemigroupClosure.NO_BOUND));
+        assertEquals(SemigroupClosure.Status.BOUND_EXCEEDED, closure.run(SemigroupClosure.NO_DEADLINE, saturated.maxValue() - 1).status());
+    }
+}